@@ -0,0 +1,138 @@
+package bluezone.bench;
+
+import bluezone.contoller.Simulator;
+import bluezone.util.ResultsRecorder;
+import bluezone.util.SimulationStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the simulator hot paths: `stepAnimation`,
+ * `advanceRound`, `candidateAdaptive`, `SimulationStats.computeMetrics` and
+ * `ResultsRecorder.recordRun`, each for every combination of player count,
+ * mode and starting round (`@Param`, override with `-p`). Run them with
+ * `gradle jmh`, which adds the gc profiler, so every score comes with the
+ * bytes allocated per op and the GC count and time.
+ *
+ * Ticks and rounds change the game they are timed on, so each invocation
+ * of those gets a fresh seeded game (untimed) and times `TICKS` ticks or
+ * one round on it, and the alive count stays representative. The other
+ * benchmarks only read the game and share one per iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SimulatorJmhBenchmark {
+    // ticks timed per fresh game; combat thins large lobbies out quickly
+    static final int TICKS = 50;
+
+    @State(Scope.Thread)
+    public static class Game {
+        @Param({"30", "1000", "10000", "100000", "1000000"})
+        public int players;
+        @Param({"adaptive", "random"})
+        public String mode;
+        @Param({"0"})
+        public int round;
+
+        Simulator sim;
+        final List<Integer> inZone = new ArrayList<>(Arrays.asList(0, 0, 0));
+        final List<Integer> outside = new ArrayList<>(Arrays.asList(0, 0, 0));
+
+        // Fresh seeded game advanced to the requested round. The simulator is
+        // kept, so its buffers are not counted against every op; each reset
+        // reseeds it, so every game is new.
+        void prepare() {
+            if (sim == null) {
+                sim = new Simulator(1000, 500, 1);
+                sim.randomMode = mode.equals("random");
+            }
+            sim.reset(players);
+            for (int r = 0; r < round; r++) sim.advanceRound();
+        }
+
+        @Setup(Level.Iteration)
+        public void prepareIteration() { prepare(); }
+    }
+
+    // A game prepared again before every invocation, for the benchmarks that change it.
+    @State(Scope.Thread)
+    public static class FreshGame extends Game {
+        @Override
+        public void prepareIteration() { }
+
+        @Setup(Level.Invocation)
+        public void prepareInvocation() { prepare(); }
+    }
+
+    // Keeps recordRun output out of the real results/ folder.
+    @State(Scope.Benchmark)
+    public static class Results {
+        File dir;
+
+        @Setup(Level.Trial)
+        public void redirect() throws IOException {
+            dir = Files.createTempDirectory("bluezone-bench").toFile();
+            ResultsRecorder.outputDir = dir;
+        }
+
+        @TearDown(Level.Trial)
+        public void remove() {
+            ResultsRecorder.flush();
+            File[] files = dir.listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.delete();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int stepAnimation(FreshGame g) {
+        for (int k = 0; k < TICKS; k++) g.sim.stepAnimation();
+        return g.sim.players.countAlive();
+    }
+
+    @Benchmark
+    public int advanceRound(FreshGame g) {
+        g.sim.advanceRound();
+        return g.sim.round;
+    }
+
+    @Benchmark
+    public double candidateAdaptive(Game g) {
+        return g.sim.candidateAdaptive()[0].x;
+    }
+
+    @Benchmark
+    public double computeMetrics(Game g) {
+        return SimulationStats.computeMetrics(g.sim, g.inZone, g.outside, 30).avgKills;
+    }
+
+    @Benchmark
+    public Object recordRun(Game g, Results r) {
+        return ResultsRecorder.recordRun(g.sim, g.inZone, g.outside, 30);
+    }
+}
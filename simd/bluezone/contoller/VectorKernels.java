@@ -0,0 +1,140 @@
+package bluezone.contoller;
+
+import bluezone.model.PlayerStore;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Vector API kernel for the data-parallel tail of a tick: clamping moved
+ * players to the map, then measuring and classifying their distance to
+ * the zone (see ZoneMembership). It walks the PlayerStore columns eight
+ * ids at a time, blending results into the alive lanes only, and writes the
+ * eight class bytes as one long. Every lane does exactly the scalar
+ * operations (min, max, subtract, multiply, add; never fused) and the
+ * comparisons agree with the scalar ones, so results are bit-identical
+ * to `ZoneMembership.classify`. Nothing is allocated per call: the masks
+ * come from tables and the classes are packed with a shift and a sum,
+ * since JDK 17 still boxes VectorMask.fromLong and toLong.
+ *
+ * Steering is not vectorised (see MovementPhase), so this speeds up only
+ * the tail of the movement phase; check=simd measures the whole phase.
+ *
+ * This is the only class compiled against the incubating module, in a
+ * source set of its own (simd/), and nothing refers to it by name:
+ * SimdKernels.INSTANCE loads it reflectively. Without the module in the
+ * JVM it fails to link, and the simulator keeps its scalar path
+ * (Simulator.SIMD_AVAILABLE).
+ */
+final class VectorKernels implements SimdKernels {
+    // at most 8 lanes (512 bits): a group is eight ids and the mask tables have 2^LANES entries
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED.length() <= 8 ? DoubleVector.SPECIES_PREFERRED : DoubleVector.SPECIES_512;
+    static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED.length() <= 8 ? LongVector.SPECIES_PREFERRED : LongVector.SPECIES_512;
+    static final int LANES = SPECIES.length();
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    // LIVE[b] is true in lane k where bit k of b is set; built once, as JDK 17 does not intrinsify VectorMask.fromLong
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Double>[] LIVE = new VectorMask[1 << LANES];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final VectorMask<Long>[] LIVE_LONG = new VectorMask[1 << LANES];
+    // left shift that puts lane k's class into byte k of a lane group
+    private static final LongVector SHIFTS = LongVector.zero(LONG_SPECIES).addIndex(8);
+    static {
+        boolean[] lanes = new boolean[LANES];
+        for (int b = 0; b < LIVE.length; b++) {
+            for (int k = 0; k < LANES; k++) lanes[k] = (b >>> k & 1) != 0;
+            LIVE[b] = VectorMask.fromArray(SPECIES, lanes, 0);
+            LIVE_LONG[b] = VectorMask.fromArray(LONG_SPECIES, lanes, 0);
+        }
+    }
+
+    VectorKernels() { }
+
+    @Override public int lanes() { return LANES; }
+
+    @Override
+    public void clampAndClassify(PlayerStore ps, ZoneMembership zm, int lo, int hi,
+                                 boolean clamp, double minX, double maxX, double minY, double maxY, int[] counts) {
+        final double[] px = ps.x, py = ps.y, dist2 = zm.dist2;
+        final byte[] cls = zm.cls;
+        final double cx = zm.cx, cy = zm.cy, r2 = zm.r2, b2 = zm.b2;
+        // dist2 is never negative, so its bits order like its values and the classes can be
+        // picked on the long view; a NaN radius would break that, leave it to the scalar loop
+        final int groups = Double.isNaN(r2) || Double.isNaN(b2) ? lo : lo + (hi - lo) / 8 * 8;
+        final long r2Bits = Double.doubleToRawLongBits(r2), b2Bits = Double.doubleToRawLongBits(b2);
+        int in = 0, buf = 0, alive = 0;
+        int i = lo;
+        for (; i < groups; i += 8) {
+            // late in a game most words are empty: skip them whole
+            if ((i & 63) == 0 && i + 64 <= groups && ps.aliveWord(i >>> 6) == 0) { i += 56; continue; }
+            int live8 = (int) (ps.aliveWord(i >>> 6) >>> (i & 63)) & 0xFF;
+            if (live8 == 0) continue;
+            int n = group(px, py, dist2, cls, i, live8, clamp, minX, maxX, minY, maxY, cx, cy, r2Bits, b2Bits);
+            in += n & 0xFF;
+            buf += n >>> 8;
+            alive += Integer.bitCount(live8);
+        }
+        int out = alive - in - buf;
+        for (; i < hi; i++) {
+            if (!ps.isAlive(i)) continue;
+            if (clamp) {
+                px[i] = Math.max(minX, Math.min(maxX, px[i]));
+                py[i] = Math.max(minY, Math.min(maxY, py[i]));
+            }
+            switch (zm.classify(i, px[i], py[i])) {
+                case ZoneMembership.INSIDE: in++; break;
+                case ZoneMembership.BUFFER: buf++; break;
+                default: out++;
+            }
+        }
+        counts[ZoneMembership.INSIDE] += in;
+        counts[ZoneMembership.BUFFER] += buf;
+        counts[ZoneMembership.OUTSIDE] += out;
+    }
+
+    // The eight ids from `i`, of which those set in `live8` are alive; returns inside | buffer << 8.
+    // Kept apart so that C2 compiles it after a few calls: the loop above runs rarely but long, and
+    // until its caller is compiled no vector may cross a call, or the Vector API boxes it.
+    private static int group(double[] px, double[] py, double[] dist2, byte[] cls, int i, int live8, boolean clamp,
+                             double minX, double maxX, double minY, double maxY, double cx, double cy, long r2Bits, long b2Bits) {
+        int in = 0, buf = 0;
+        long bytes = 0;
+        for (int j = 0; j < 8; j += LANES) {
+            // all eight ids are in range, so no load or store needs a mask. The dead keep their
+            // values by a blend with what was loaded: JDK 17 intrinsifies a masked intoArray only
+            // when every lane is set, and otherwise stores lane by lane from a boxed vector
+            int b = live8 >>> j & (1 << LANES) - 1;
+            VectorMask<Double> alive = LIVE[b];
+            DoubleVector x = DoubleVector.fromArray(SPECIES, px, i + j);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, py, i + j);
+            if (clamp) {
+                x = x.blend(x.min(maxX).max(minX), alive);
+                y = y.blend(y.min(maxY).max(minY), alive);
+                x.intoArray(px, i + j);
+                y.intoArray(py, i + j);
+            }
+            DoubleVector dx = x.sub(cx), dy = y.sub(cy);
+            DoubleVector d2 = dx.mul(dx).add(dy.mul(dy));
+            DoubleVector.fromArray(SPECIES, dist2, i + j).blend(d2, alive).intoArray(dist2, i + j);
+            LongVector bits = d2.reinterpretAsLongs();
+            VectorMask<Long> live = LIVE_LONG[b];
+            VectorMask<Long> inside = bits.compare(VectorOperators.LE, r2Bits).and(live);
+            VectorMask<Long> buffer = bits.compare(VectorOperators.LE, b2Bits).and(live).andNot(inside);
+            in += inside.trueCount();
+            buf += buffer.trueCount();
+            LongVector c = LongVector.broadcast(LONG_SPECIES, ZoneMembership.OUTSIDE)
+                    .blend(ZoneMembership.BUFFER, buffer)
+                    .blend(ZoneMembership.INSIDE, inside)
+                    .blend(ZoneMembership.DEAD, live.not());
+            bytes |= c.lanewise(VectorOperators.LSHL, SHIFTS).reduceLanes(VectorOperators.ADD) << (8 * j);
+        }
+        LONGS.set(cls, i, bytes);
+        return in | buf << 8;
+    }
+}
@@ -0,0 +1,147 @@
+package bluezone;
+
+import bluezone.contoller.SimulationConfig;
+import bluezone.util.JsonWriter;
+import bluezone.util.ResultsRecorder;
+import bluezone.util.SequentialTest;
+import bluezone.util.SimulationStats.Stats;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless A/B experiment: adaptive zone (A) against random zone (B).
+ * Seed `baseSeed + i` is played once in each mode and the pair goes into
+ * a SequentialTest over the chosen metrics. Every `batch` pairs the test
+ * takes a look, and the experiment stops as soon as every metric is
+ * resolved or `budget` pairs have been played. Pairs are played on all
+ * cores but enter the test in seed order, so the result and the stopping
+ * point do not depend on the thread count. The outcome is printed and
+ * written to `ab-<time>.json` in the results directory.
+ *
+ * Usage (all arguments optional, key=value):
+ *   ABRunner metrics=avgDistanceToCenter,eliminationsPerRound players=30
+ *            budget=5000 batch=25 alpha=0.05 tolerance=avgDistanceToCenter:5,...
+ *            baseSeed=1 threads=N <knob>=value
+ * `<knob>` is any name in SimulationConfig.KNOBS and applies to both arms.
+ */
+public class ABRunner {
+    // results of one seed in both modes
+    static class Pair {
+        final long index;
+        final Stats adaptive, random;
+        Pair(long index, Stats adaptive, Stats random) { this.index = index; this.adaptive = adaptive; this.random = random; }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("metrics", "avgDistanceToCenter,eliminationsPerRound");
+        opts.put("players", "30");
+        opts.put("budget", "5000");
+        opts.put("batch", "25");
+        opts.put("alpha", "0.05");
+        opts.put("tolerance", "");
+        opts.put("baseSeed", "1");
+        opts.put("threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        SimulationConfig.Builder config = SimulationConfig.DEFAULT.toBuilder();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value, got " + a);
+            String key = a.substring(0, eq), value = a.substring(eq + 1);
+            if (opts.containsKey(key)) opts.put(key, value);
+            else config.set(key, Double.parseDouble(value));
+        }
+        String[] names = opts.get("metrics").split(",");
+        int[] metrics = new int[names.length];
+        for (int i = 0; i < names.length; i++) metrics[i] = Stats.field(names[i].trim());
+        double[] tolerance = new double[names.length];
+        for (String t : opts.get("tolerance").split(",")) {
+            if (t.isEmpty()) continue;
+            String[] kv = t.split(":");
+            int f = Stats.field(kv[0].trim());
+            boolean found = false;
+            for (int i = 0; i < metrics.length; i++) if (metrics[i] == f) { tolerance[i] = Double.parseDouble(kv[1]); found = true; }
+            if (!found) throw new IllegalArgumentException("tolerance given for " + kv[0] + ", which is not a compared metric");
+        }
+        int players = Integer.parseInt(opts.get("players"));
+        long budget = Long.parseLong(opts.get("budget"));
+        int batch = Math.max(2, Integer.parseInt(opts.get("batch")));
+        long baseSeed = Long.parseLong(opts.get("baseSeed"));
+        int threads = Integer.parseInt(opts.get("threads"));
+        SimulationConfig cfg = config.build();
+
+        SequentialTest test = new SequentialTest(metrics, tolerance, Double.parseDouble(opts.get("alpha")),
+                (int) ((budget + batch - 1) / batch));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ExecutorCompletionService<Pair> done = new ExecutorCompletionService<>(pool);
+        // pairs played ahead of the test; results past the stopping point are discarded
+        int window = threads * 4;
+        Map<Long, Pair> early = new HashMap<>();
+        long submitted = 0, inFlight = 0;
+        boolean stop = false;
+        long start = System.nanoTime();
+        try {
+            while (!stop) {
+                while (inFlight < window && submitted < budget) {
+                    final long index = submitted++;
+                    done.submit(() -> new Pair(index,
+                            SweepRunner.playGame(cfg, baseSeed + index, players, false),
+                            SweepRunner.playGame(cfg, baseSeed + index, players, true)));
+                    inFlight++;
+                }
+                if (inFlight == 0) break;
+                Pair p = done.take().get();
+                inFlight--;
+                early.put(p.index, p);
+                // feed the test strictly in seed order
+                while (!stop && (p = early.remove(test.pairs)) != null) {
+                    test.add(p.adaptive, p.random);
+                    if (test.pairs % batch == 0 || test.pairs == budget) {
+                        stop = test.look() || test.pairs == budget;
+                        printLook(test, names);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%s after %d pairs (%d games, budget %d pairs) in %.2fs%n",
+                test.isDone() ? "Resolved" : "Budget exhausted", test.pairs, 2 * test.pairs, budget, secs);
+
+        JsonWriter w = new JsonWriter(4096).raw('{');
+        w.key("players").number(players).raw(',');
+        w.key("baseSeed").number(baseSeed).raw(',');
+        w.key("budget").number(budget).raw(',');
+        w.key("batch").number(batch).raw(',');
+        w.key("resolved").bool(test.isDone()).raw(',');
+        w.key("config");
+        cfg.writeJson(w).raw(',');
+        w.key("test");
+        test.writeJson(w, "adaptive", "random").raw("}\n");
+        File dir = ResultsRecorder.outputDir;
+        dir.mkdirs();
+        File f = new File(dir, "ab-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".json");
+        Files.write(f.toPath(), w.toBytes());
+        System.out.println("Result written to " + f.getPath());
+    }
+
+    private static void printLook(SequentialTest test, String[] names) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "pairs %6d", test.pairs));
+        for (int i = 0; i < names.length; i++) {
+            sb.append(String.format(Locale.ROOT, "  %s %+.3f [%+.3f, %+.3f] %s", names[i].trim(), test.diff[i].mean(), test.lo[i], test.hi[i],
+                    SequentialTest.verdictName(test.verdict[i], "adaptive", "random")));
+        }
+        System.out.println(sb);
+    }
+}
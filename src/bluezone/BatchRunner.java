@@ -0,0 +1,139 @@
+package bluezone;
+
+import bluezone.contoller.Match;
+import bluezone.contoller.SimulationConfig;
+import bluezone.contoller.Simulator;
+import bluezone.util.Heatmap;
+import bluezone.util.JsonWriter;
+import bluezone.util.ResultsRecorder;
+import bluezone.util.SimulationStats.Stats;
+import bluezone.util.SimulationStats.Summary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless entry point: plays many seeded games concurrently, as fast as
+ * the CPU allows, and records each one through ResultsRecorder.
+ *
+ * Usage: BatchRunner [games] [players] [adaptive|random|both] [baseSeed] [threads] [sequential|counter]
+ * Game `i` uses seed `baseSeed + i`, so any single game can be replayed;
+ * the last argument picks the random generator (SimulationConfig.counterRng).
+ * With mode `both`, even games run adaptive and odd games run random.
+ *
+ * Besides the per-game records, the stats of every game are summarised
+ * per mode while the batch runs (each worker thread keeps its own
+ * SimulationStats.Summary, merged at the end) and written to
+ * `batch-summary-<time>.json` next to the run logs. Where players stood,
+ * fought and died is added up the same way into one Heatmap per mode,
+ * written to `heatmap-<mode>-<time>.bzh`.
+ */
+public class BatchRunner {
+    static final int WORLD_W = 1000, WORLD_H = 500;
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String mode = args.length > 2 ? args[2] : "both";
+        long baseSeed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        SimulationConfig config = SimulationConfig.DEFAULT.toBuilder().counterRng(args.length > 5 && args[5].equals("counter")).build();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger done = new AtomicInteger();
+        // per worker thread: {adaptive, random}
+        List<Summary[]> summaries = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Summary[]> local = ThreadLocal.withInitial(() -> {
+            Summary[] s = {new Summary(), new Summary()};
+            summaries.add(s);
+            return s;
+        });
+        List<Heatmap[]> heatmaps = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Heatmap[]> localHeat = ThreadLocal.withInitial(() -> {
+            Heatmap[] h = {Heatmap.forWorld(WORLD_W, WORLD_H), Heatmap.forWorld(WORLD_W, WORLD_H)};
+            heatmaps.add(h);
+            return h;
+        });
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            final long seed = baseSeed + i;
+            final boolean random = mode.equals("random") || (mode.equals("both") && (i & 1) == 1);
+            futures.add(pool.submit(() -> {
+                Stats stats = runGame(config, seed, players, random, localHeat.get()[random ? 1 : 0]);
+                if (stats != null) local.get()[random ? 1 : 0].add(stats);
+                done.incrementAndGet();
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        ResultsRecorder.flush();
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Played %d games (%d players, mode %s) on %d threads in %.2fs (%.1f games/s)%n",
+                done.get(), players, mode, threads, secs, done.get() / secs);
+
+        Summary adaptive = new Summary(), random = new Summary();
+        for (Summary[] s : summaries) { adaptive.merge(s[0]); random.merge(s[1]); }
+        File out = writeSummary(adaptive, random);
+        if (out != null) System.out.println("Summary written to " + out.getPath());
+
+        Heatmap adaptiveHeat = Heatmap.forWorld(WORLD_W, WORLD_H), randomHeat = Heatmap.forWorld(WORLD_W, WORLD_H);
+        for (Heatmap[] h : heatmaps) { adaptiveHeat.merge(h[0]); randomHeat.merge(h[1]); }
+        writeHeatmap("adaptive", adaptiveHeat);
+        writeHeatmap("random", randomHeat);
+    }
+
+    // Write one mode's heatmap next to the run logs, unless that mode played no games.
+    static void writeHeatmap(String mode, Heatmap h) {
+        if (h.games == 0) return;
+        File f = new File(ResultsRecorder.outputDir, "heatmap-" + mode + "-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".bzh");
+        try {
+            h.write(f);
+            System.out.println("Heatmap (" + mode + ") written to " + f.getPath());
+        } catch (IOException ex) {
+            System.err.println("Failed to write heatmap: " + ex.getMessage());
+        }
+    }
+
+    // Write the per-mode summaries as {"adaptive":{..},"random":{..}}; modes without games are left out.
+    static File writeSummary(Summary adaptive, Summary random) {
+        JsonWriter w = new JsonWriter(8192).raw('{');
+        if (adaptive.games > 0) adaptive.writeJson(w.key("adaptive"));
+        if (random.games > 0) {
+            if (adaptive.games > 0) w.raw(',');
+            random.writeJson(w.key("random"));
+        }
+        w.raw('}').raw('\n');
+        File dir = ResultsRecorder.outputDir;
+        File f = new File(dir, "batch-summary-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".json");
+        try {
+            dir.mkdirs();
+            Files.write(f.toPath(), w.toBytes());
+            return f;
+        } catch (IOException ex) {
+            System.err.println("Failed to write batch summary: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    // Play one game to completion and record it, adding it to `heatmap` if not null; returns its stats.
+    static Stats runGame(SimulationConfig config, long seed, int players, boolean randomMode, Heatmap heatmap) {
+        Simulator sim = new Simulator(WORLD_W, WORLD_H, seed, config);
+        sim.randomMode = randomMode;
+        sim.heatmap = heatmap;
+        Match match = new Match(sim);
+        match.start(players);
+        match.runToEnd();
+        return ResultsRecorder.recordRun(sim, match.playersInZoneHistory, match.deathsOutsideHistory, match.getCountdownSeconds());
+    }
+}
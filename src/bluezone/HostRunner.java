@@ -0,0 +1,132 @@
+package bluezone;
+
+import bluezone.contoller.Match;
+import bluezone.contoller.MatchHost;
+import bluezone.contoller.SimulationConfig;
+import bluezone.contoller.Simulator;
+import bluezone.util.NanoHistogram;
+import bluezone.util.ResultsRecorder;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load driver for MatchHost: keeps `matches` real-time matches running
+ * concurrently for `seconds`, starting a new one whenever one finishes,
+ * and reports host throughput every `report` seconds. Match `k` uses seed
+ * `baseSeed + k` and a lobby size drawn from `players=min:max`. The first
+ * matches are admitted evenly over `ramp` seconds (default one game
+ * length) so that, as with real lobbies, they do not all end at once.
+ *
+ * Usage (all arguments optional, key=value):
+ *   HostRunner matches=10000 players=30:100 seconds=150 ramp=60 threads=N
+ *              mode=adaptive|random|both record=true baseSeed=1 report=5
+ *
+ * The host keeps up when the tick rate matches what the live matches
+ * need (one tick per match every Simulator.TICK_MS) and p99 tick latency
+ * stays below one tick interval. Latencies are reported per interval; the
+ * final figures leave out the first interval (JIT warm-up).
+ */
+public class HostRunner {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("matches", "10000");
+        opts.put("players", "30:100");
+        opts.put("seconds", "150");
+        opts.put("ramp", Integer.toString(SimulationConfig.DEFAULT.gameSeconds));
+        opts.put("threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        opts.put("mode", "both");
+        opts.put("record", "true");
+        opts.put("baseSeed", "1");
+        opts.put("report", "5");
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0 || !opts.containsKey(a.substring(0, eq))) throw new IllegalArgumentException("unknown option " + a + ", expected one of " + opts.keySet());
+            opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        int matches = Integer.parseInt(opts.get("matches"));
+        String[] range = opts.get("players").split(":");
+        int minPlayers = Integer.parseInt(range[0]);
+        int maxPlayers = Integer.parseInt(range[range.length - 1]);
+        double seconds = Double.parseDouble(opts.get("seconds"));
+        int threads = Integer.parseInt(opts.get("threads"));
+        String mode = opts.get("mode");
+        boolean record = Boolean.parseBoolean(opts.get("record"));
+        long baseSeed = Long.parseLong(opts.get("baseSeed"));
+        double report = Double.parseDouble(opts.get("report"));
+        double ramp = Double.parseDouble(opts.get("ramp"));
+
+        AtomicLong nextMatch = new AtomicLong();
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        MatchHost host = new MatchHost(threads, record, (h, m) -> {
+            // keep the number of live matches constant until the run ends
+            if (System.nanoTime() < deadline) h.submit(newMatch(nextMatch.getAndIncrement(), baseSeed, minPlayers, maxPlayers, mode));
+        });
+        host.start();
+        System.out.printf(Locale.ROOT, "Hosting %d matches (%s players) on %d threads for %.0fs, ramping up over %.0fs%n",
+                matches, opts.get("players"), threads, seconds, ramp);
+        Thread admitter = new Thread(() -> {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < matches; i++) {
+                long at = t0 + (long) (ramp * 1e9 * i / matches);
+                long wait = at - System.nanoTime();
+                if (wait > 0) java.util.concurrent.locks.LockSupport.parkNanos(wait);
+                host.submit(newMatch(nextMatch.getAndIncrement(), baseSeed, minPlayers, maxPlayers, mode));
+            }
+        }, "host-runner-admit");
+        admitter.setDaemon(true);
+        admitter.start();
+        System.out.printf(Locale.ROOT, "%8s %8s %10s %12s %12s %10s %10s%n", "time.s", "active", "matches/s", "ticks/s", "needed/s", "p99.ms", "heap.MB");
+
+        long lastTicks = 0, lastFinished = 0, lastActive = 0, lastNanos = System.nanoTime();
+        double ratio = 0;
+        NanoHistogram steady = new NanoHistogram();
+        boolean warm = false;
+        while (System.nanoTime() < deadline) {
+            long sleep = Math.min((long) (report * 1000), Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+            Thread.sleep(sleep);
+            long now = System.nanoTime();
+            long ticks = host.getTicks(), finished = host.getMatchesFinished();
+            double dt = (now - lastNanos) / 1e9;
+            long active = host.getActiveMatches();
+            double tickRate = (ticks - lastTicks) / dt;
+            // matches admitted part-way through the interval needed fewer ticks; average the two ends
+            double needed = (active + lastActive) / 2.0 * 1000.0 / Simulator.TICK_MS;
+            ratio = needed > 0 ? tickRate / needed : 0;
+            NanoHistogram interval = host.tickLatency();
+            host.resetTickLatency();
+            if (warm) steady.merge(interval);
+            warm = true;
+            Runtime rt = Runtime.getRuntime();
+            System.out.printf(Locale.ROOT, "%8.1f %8d %10.1f %12.0f %12.0f %10.2f %10d%n",
+                    (now - (deadline - (long) (seconds * 1e9))) / 1e9, active, (finished - lastFinished) / dt, tickRate, needed,
+                    interval.percentile(0.99) / 1e6, (rt.totalMemory() - rt.freeMemory()) >> 20);
+            lastTicks = ticks; lastFinished = finished; lastNanos = now; lastActive = active;
+        }
+        host.stop();
+        ResultsRecorder.flush();
+        NanoHistogram latency = steady.count() > 0 ? steady : host.tickLatency();
+        boolean rateOk = ratio >= 0.98, latencyOk = latency.percentile(0.99) < Simulator.TICK_MS * 1_000_000L;
+        System.out.printf(Locale.ROOT, "%d matches finished, %d ticks, %.1f matches/s, %.0f ticks/s, tick %.1f us mean, latency p50 %.2f ms p99 %.2f ms max %.2f ms%n",
+                host.getMatchesFinished(), host.getTicks(), host.getMatchesPerSecond(), host.getTicksPerSecond(), host.getTickTimeMeanMicros(),
+                latency.percentile(0.50) / 1e6, latency.percentile(0.99) / 1e6, latency.max() / 1e6);
+        if (rateOk && latencyOk) System.out.println("Host kept up with " + matches + " concurrent matches");
+        else if (!rateOk) System.out.printf(Locale.ROOT, "Host fell behind: %.0f%% of the needed tick rate in the last interval%n", ratio * 100);
+        else System.out.printf(Locale.ROOT, "Host kept the tick rate but p99 latency exceeds one tick (%d ms)%n", Simulator.TICK_MS);
+    }
+
+    // A started match for sequence number `k`: seed baseSeed + k, lobby size and (for mode both) zone mode derived from it.
+    static Match newMatch(long k, long baseSeed, int minPlayers, int maxPlayers, String mode) {
+        long seed = baseSeed + k;
+        Simulator sim = new Simulator(1000, 500, seed);
+        sim.randomMode = mode.equals("random") || (mode.equals("both") && (k & 1) == 1);
+        // a big lobby's movement would otherwise fan out to the common pool, competing with the host threads
+        sim.movementPool = null;
+        Match match = new Match(sim);
+        match.start(minPlayers + new SplittableRandom(seed).nextInt(maxPlayers - minPlayers + 1));
+        return match;
+    }
+}
@@ -2,14 +2,53 @@ package bluezone;
 
 import javax.swing.SwingUtilities;
 import bluezone.view.BlueZoneFrame;
+import bluezone.contoller.SimulationConfig;
 import bluezone.contoller.Simulator;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Opens the live view. Without arguments this is the original game: 30
+ * players on a 1000x500 map, adaptive zones. Options (key=value):
+ *   world=WxH players=N mode=adaptive|random seed=S rng=sequential|counter <knob>=<value>
+ * where knob is any of SimulationConfig.KNOBS. On a larger world the zone
+ * radii grow with it (by min(W/1000, H/500)) unless radiusScale is given,
+ * e.g. `world=10000x10000 players=1000000`.
+ */
 public class Main {
     public static void main(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("world", "1000x500");
+        opts.put("players", "30");
+        opts.put("mode", "adaptive");
+        opts.put("seed", "");
+        opts.put("rng", "sequential");
+        Map<String, Double> knobs = new LinkedHashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            String key = eq > 0 ? a.substring(0, eq) : a;
+            if (opts.containsKey(key)) opts.put(key, a.substring(eq + 1));
+            else if (eq > 0 && Arrays.asList(SimulationConfig.KNOBS).contains(key)) knobs.put(key, Double.parseDouble(a.substring(eq + 1)));
+            else throw new IllegalArgumentException("unknown option " + a + ", expected one of " + opts.keySet() + " or a knob " + Arrays.toString(SimulationConfig.KNOBS));
+        }
+        String[] world = opts.get("world").toLowerCase().split("x");
+        int w = Integer.parseInt(world[0]), h = Integer.parseInt(world[world.length - 1]);
+        int players = Integer.parseInt(opts.get("players"));
+        long seed = opts.get("seed").isEmpty() ? new Random().nextLong() : Long.parseLong(opts.get("seed"));
+        SimulationConfig.Builder b = SimulationConfig.DEFAULT.toBuilder().counterRng(opts.get("rng").equals("counter"));
+        double scale = Math.min(w / 1000.0, h / 500.0);
+        if (!knobs.containsKey("radiusScale") && scale != 1) b.set("radiusScale", scale);
+        knobs.forEach(b::set);
+        SimulationConfig config = b.build();
+
         SwingUtilities.invokeLater(() -> {
-            // creates a single simulator and frame (adaptive map only)
-            Simulator sim = new Simulator(1000, 500);
-            BlueZoneFrame frame = new BlueZoneFrame(sim);
+            // creates a single simulator and frame
+            Simulator sim = new Simulator(w, h, seed, config);
+            sim.randomMode = opts.get("mode").equals("random");
+            BlueZoneFrame frame = new BlueZoneFrame(sim, players);
             frame.setLocation(100, 100);
             frame.setVisible(true);
         });
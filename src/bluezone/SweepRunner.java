@@ -0,0 +1,187 @@
+package bluezone;
+
+import bluezone.contoller.Match;
+import bluezone.contoller.SimulationConfig;
+import bluezone.contoller.Simulator;
+import bluezone.util.JsonWriter;
+import bluezone.util.ResultsRecorder;
+import bluezone.util.SimulationStats;
+import bluezone.util.SimulationStats.Summary;
+import bluezone.util.SweepSpace;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless parameter sweep: plays every config of a grid or
+ * Latin-hypercube design (see SweepSpace) against the same seeds on all
+ * cores and writes one line per config and mode to
+ * `sweep-<time>.ndjson` in the results directory as soon as its last
+ * game finishes. Each line holds the sampled knob values, the full config
+ * and a SimulationStats.Summary of its games; individual games are not
+ * recorded.
+ *
+ * Usage (all arguments optional, key=value):
+ *   SweepRunner design=grid|lhs steps=3 samples=64 seeds=32 players=30
+ *               mode=adaptive|random|both baseSeed=1 sampleSeed=1 threads=N
+ *               block=8 out=results rng=sequential|counter radii=280,240,...
+ *               <knob>=lo:hi[:steps] <knob>=value
+ * `<knob>` is any name in SimulationConfig.KNOBS: a range makes it a sweep
+ * dimension (`steps` overrides the grid default), a single value changes
+ * the base config. Seed `baseSeed + s` is used for game `s` of every
+ * config, so configs are compared on identical random streams.
+ */
+public class SweepRunner {
+    // one config in one mode: the unit a result line is written for
+    static class Cell {
+        final SweepSpace.Point point;
+        final boolean random;
+        int remainingBlocks;
+        Summary summary;
+
+        Cell(SweepSpace.Point point, boolean random, int blocks) {
+            this.point = point; this.random = random; this.remainingBlocks = blocks;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("design", "grid");
+        opts.put("steps", "3");
+        opts.put("samples", "64");
+        opts.put("seeds", "32");
+        opts.put("players", "30");
+        opts.put("mode", "adaptive");
+        opts.put("baseSeed", "1");
+        opts.put("sampleSeed", "1");
+        opts.put("threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        opts.put("block", "8");
+        opts.put("out", ResultsRecorder.outputDir.getPath());
+        opts.put("rng", "sequential");
+        Map<String, String> knobs = new LinkedHashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value, got " + a);
+            String key = a.substring(0, eq), value = a.substring(eq + 1);
+            if (opts.containsKey(key) || key.equals("radii")) opts.put(key, value);
+            else knobs.put(key, value);
+        }
+        int defaultSteps = Integer.parseInt(opts.get("steps"));
+        int seeds = Integer.parseInt(opts.get("seeds"));
+        int players = Integer.parseInt(opts.get("players"));
+        String mode = opts.get("mode");
+        long baseSeed = Long.parseLong(opts.get("baseSeed"));
+        int threads = Integer.parseInt(opts.get("threads"));
+        int block = Math.max(1, Integer.parseInt(opts.get("block")));
+
+        // base config from fixed knobs, then the dimensions
+        SimulationConfig.Builder base = SimulationConfig.DEFAULT.toBuilder().counterRng(opts.get("rng").equals("counter"));
+        if (opts.containsKey("radii")) {
+            String[] parts = opts.get("radii").split(",");
+            double[] radii = new double[parts.length];
+            for (int r = 0; r < parts.length; r++) radii[r] = Double.parseDouble(parts[r].trim());
+            base.roundRadii(radii);
+        }
+        List<String[]> ranges = new ArrayList<>();
+        for (Map.Entry<String, String> e : knobs.entrySet()) {
+            String[] parts = e.getValue().split(":");
+            if (parts.length == 1) base.set(e.getKey(), Double.parseDouble(parts[0]));
+            else ranges.add(new String[]{e.getKey(), parts[0], parts[1], parts.length > 2 ? parts[2] : Integer.toString(defaultSteps)});
+        }
+        SweepSpace space = new SweepSpace(base.build());
+        for (String[] r : ranges) space.add(r[0], Double.parseDouble(r[1]), Double.parseDouble(r[2]), Integer.parseInt(r[3]));
+        List<SweepSpace.Point> points = opts.get("design").equals("lhs")
+                ? space.latinHypercube(Integer.parseInt(opts.get("samples")), Long.parseLong(opts.get("sampleSeed")))
+                : space.grid();
+        if (space.skipped > 0) System.err.println("Skipped " + space.skipped + " invalid knob combinations");
+
+        boolean[] modes = mode.equals("both") ? new boolean[]{false, true} : new boolean[]{mode.equals("random")};
+        int blocks = (seeds + block - 1) / block;
+        File dir = new File(opts.get("out"));
+        dir.mkdirs();
+        File outFile = new File(dir, "sweep-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".ndjson");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ThreadLocal<Summary> local = ThreadLocal.withInitial(Summary::new);
+        AtomicLong games = new AtomicLong();
+        long start = System.nanoTime();
+        try (OutputStream out = new FileOutputStream(outFile)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (SweepSpace.Point p : points) {
+                for (boolean random : modes) {
+                    Cell cell = new Cell(p, random, blocks);
+                    for (int b = 0; b < blocks; b++) {
+                        final int from = b * block, to = Math.min(seeds, from + block);
+                        futures.add(pool.submit(() -> {
+                            Summary s = local.get();
+                            for (int g = from; g < to; g++) s.add(playGame(cell.point.config, baseSeed + g, players, cell.random));
+                            games.addAndGet(to - from);
+                            finishBlock(cell, s, seeds, space, out);
+                            s.clear();
+                            return null;
+                        }));
+                    }
+                }
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Swept %d configs x %d mode(s) x %d seeds (%d games, %d players) on %d threads in %.2fs (%.1f games/s)%n",
+                points.size(), modes.length, seeds, games.get(), players, threads, secs, games.get() / secs);
+        System.out.println("Results written to " + outFile.getPath());
+    }
+
+    // Play one game to completion and return its stats.
+    static SimulationStats.Stats playGame(SimulationConfig config, long seed, int players, boolean randomMode) {
+        Simulator sim = new Simulator(1000, 500, seed, config);
+        sim.randomMode = randomMode;
+        Match match = new Match(sim);
+        match.start(players);
+        match.runToEnd();
+        return SimulationStats.computeMetrics(sim, match.playersInZoneHistory, match.deathsOutsideHistory, match.getCountdownSeconds());
+    }
+
+    // Fold one block's games into its cell; the last block writes the cell's line.
+    static void finishBlock(Cell cell, Summary blockSummary, int seeds, SweepSpace space, OutputStream out) throws IOException {
+        Summary done;
+        synchronized (cell) {
+            if (cell.summary == null) cell.summary = new Summary();
+            cell.summary.merge(blockSummary);
+            if (--cell.remainingBlocks > 0) return;
+            done = cell.summary;
+            cell.summary = null;
+        }
+        JsonWriter w = new JsonWriter(8192).raw('{');
+        w.key("index").number(cell.point.index).raw(',');
+        w.key("mode").string(cell.random ? "random" : "adaptive").raw(',');
+        w.key("point").raw('{');
+        for (int j = 0; j < space.dimensions.size(); j++) {
+            if (j > 0) w.raw(',');
+            w.key(space.dimensions.get(j).knob).fixed(cell.point.values[j], 6);
+        }
+        w.raw("},");
+        w.key("config");
+        cell.point.config.writeJson(w).raw(',');
+        w.key("seeds").number(seeds).raw(',');
+        w.key("summary");
+        done.writeJson(w).raw("}\n");
+        synchronized (out) {
+            out.write(w.array(), 0, w.length());
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package bluezone.bench;
+
+import bluezone.contoller.SimulationConfig;
+import bluezone.contoller.Simulator;
+import bluezone.contoller.SimulatorMetrics;
+import bluezone.contoller.ZoneMembership;
+import bluezone.util.ResultsRecorder;
+import bluezone.util.SimulationStats;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Self-contained microbenchmark harness for the simulator hot paths. It
+ * needs nothing beyond the JDK; with the Gradle build at hand, prefer the
+ * JMH benchmarks of the same operations (SimulatorJmhBenchmark in jmh/,
+ * `gradle jmh`).
+ *
+ * Every benchmark is measured for each combination of player count, mode
+ * and starting round. Each measurement iteration repeatedly prepares a
+ * fresh seeded game (untimed) and then times a short batch of operations
+ * on it, so state such as the alive count stays representative. Reported
+ * per combination: mean ops/s with the spread across iterations, bytes
+ * allocated per op (thread allocation counter) and GC collections/time
+ * observed during measurement.
+ *
+ * Usage (all arguments optional, key=value, lists comma separated):
+ *   SimulatorBenchmark bench=stepAnimation,advanceRound players=30,1000
+ *                      mode=adaptive,random round=0 warmup=3 iterations=5 time=1.0
+ * `bench=all` runs every benchmark; `time` is seconds per iteration.
+ *
+ * `check=simd` instead plays each game twice in lockstep, with and without the
+ * Vector API kernels (Simulator.simd, at any number of players alive),
+ * fails unless positions, distances and zone classes agree after every
+ * tick and round, then times the movement phase of both on the first
+ * ticks of fresh games, while nearly every player is still alive. Run it
+ * with `--add-modules jdk.incubator.vector` and the simd/ classes on the
+ * class path, otherwise there is nothing to compare:
+ *   SimulatorBenchmark check=simd players=1000,100000,1000000 ticks=300
+ */
+public class SimulatorBenchmark {
+    public static final String[] BENCHMARKS = {
+        "stepAnimation", "advanceRound", "candidateAdaptive", "computeMetrics", "recordRun"
+    };
+
+    // consumes benchmark results so the JIT cannot discard the measured work
+    static volatile long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        opts.put("bench", "stepAnimation,advanceRound,candidateAdaptive,computeMetrics");
+        opts.put("players", "30,1000,10000,100000,1000000");
+        opts.put("mode", "adaptive,random");
+        opts.put("round", "0");
+        opts.put("warmup", "3");
+        opts.put("iterations", "5");
+        opts.put("time", "1.0");
+        opts.put("check", "");
+        opts.put("ticks", "10000");
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value, got " + a);
+            opts.put(a.substring(0, eq), a.substring(eq + 1));
+        }
+        String check = opts.get("check");
+        if (!check.isEmpty()) {
+            if (!check.equals("simd")) throw new IllegalArgumentException("unknown check " + check + ", expected simd");
+            if (!Simulator.SIMD_AVAILABLE) {
+                System.out.println("simd kernels unavailable (run with --add-modules jdk.incubator.vector)");
+                System.exit(1);
+            }
+            boolean ok = true;
+            int ticks = Integer.parseInt(opts.get("ticks"));
+            for (String players : opts.get("players").split(",")) {
+                for (String mode : opts.get("mode").split(",")) {
+                    int n = Integer.parseInt(players.trim());
+                    boolean random = mode.trim().equals("random");
+                    ok &= checkSimd(n, random, ticks);
+                }
+            }
+            if (!ok) System.exit(1);
+            return;
+        }
+        String[] benches = opts.get("bench").equals("all") ? BENCHMARKS : opts.get("bench").split(",");
+        int warmup = Integer.parseInt(opts.get("warmup"));
+        int iterations = Integer.parseInt(opts.get("iterations"));
+        double time = Double.parseDouble(opts.get("time"));
+
+        // keep recordRun output out of the real results/ folder
+        File tmp = Files.createTempDirectory("bluezone-bench").toFile();
+        ResultsRecorder.outputDir = tmp;
+
+        System.out.printf(Locale.ROOT, "%-18s %9s %-9s %5s %16s %12s %14s %8s %9s%n",
+                "benchmark", "players", "mode", "round", "ops/s", "+-", "bytes/op", "gc.count", "gc.ms");
+        for (String bench : benches) {
+            for (String players : opts.get("players").split(",")) {
+                for (String mode : opts.get("mode").split(",")) {
+                    for (String round : opts.get("round").split(",")) {
+                        Params p = new Params(bench.trim(), Integer.parseInt(players.trim()),
+                                mode.trim().equals("random"), Integer.parseInt(round.trim()));
+                        Result r = measure(p, warmup, iterations, time);
+                        System.out.printf(Locale.ROOT, "%-18s %9d %-9s %5d %16.1f %12.1f %14.1f %8d %9d%n",
+                                p.bench, p.players, p.random ? "random" : "adaptive", p.round,
+                                r.opsPerSec, r.opsPerSecError, r.bytesPerOp, r.gcCount, r.gcMillis);
+                    }
+                }
+            }
+        }
+        ResultsRecorder.flush();
+        for (File f : tmp.listFiles()) f.delete();
+        tmp.delete();
+    }
+
+    static class Params {
+        final String bench;
+        final int players;
+        final boolean random;
+        final int round;
+        Params(String bench, int players, boolean random, int round) {
+            this.bench = bench; this.players = players; this.random = random; this.round = round;
+        }
+    }
+
+    static class Result {
+        double opsPerSec, opsPerSecError, bytesPerOp;
+        long gcCount, gcMillis;
+    }
+
+    /**
+     * A prepared game plus the operation under test. `batch` is how many
+     * operations are timed per preparation.
+     */
+    static class Fixture {
+        final Params params;
+        Simulator sim;
+        long seed = 1;
+        final List<Integer> inZone = new ArrayList<>(Arrays.asList(0, 0, 0));
+        final List<Integer> outside = new ArrayList<>(Arrays.asList(0, 0, 0));
+
+        Fixture(Params params) { this.params = params; }
+
+        int batch() {
+            switch (params.bench) {
+                case "stepAnimation": return 50;
+                case "candidateAdaptive": return 200;
+                case "computeMetrics": return 20;
+                case "advanceRound":
+                case "recordRun": return 1;
+                default: throw new IllegalArgumentException("unknown benchmark " + params.bench);
+            }
+        }
+
+        // Fresh seeded game advanced to the requested round.
+        void prepare() {
+            sim = new Simulator(1000, 500, seed++);
+            sim.randomMode = params.random;
+            sim.reset(params.players);
+            for (int r = 0; r < params.round; r++) sim.advanceRound();
+        }
+
+        long op() {
+            switch (params.bench) {
+                case "stepAnimation":
+                    sim.stepAnimation();
+                    return sim.players.countAlive();
+                case "advanceRound":
+                    sim.advanceRound();
+                    return sim.round;
+                case "candidateAdaptive":
+                    return Double.doubleToLongBits(sim.candidateAdaptive()[0].x);
+                case "computeMetrics":
+                    return Double.doubleToLongBits(SimulationStats.computeMetrics(sim, inZone, outside, 30).avgKills);
+                case "recordRun":
+                    ResultsRecorder.recordRun(sim, inZone, outside, 30);
+                    return 1;
+                default:
+                    throw new IllegalArgumentException("unknown benchmark " + params.bench);
+            }
+        }
+    }
+
+    static Result measure(Params params, int warmup, int iterations, double seconds) {
+        Fixture fx = new Fixture(params);
+        for (int i = 0; i < warmup; i++) iteration(fx, seconds, null);
+        double[] rates = new double[iterations];
+        long[] totals = new long[2]; // ops, bytes
+        long gcCount0 = gcCount(), gcTime0 = gcMillis();
+        for (int i = 0; i < iterations; i++) rates[i] = iteration(fx, seconds, totals);
+        Result r = new Result();
+        r.gcCount = gcCount() - gcCount0;
+        r.gcMillis = gcMillis() - gcTime0;
+        double mean = 0;
+        for (double x : rates) mean += x;
+        mean /= iterations;
+        double var = 0;
+        for (double x : rates) var += (x - mean) * (x - mean);
+        r.opsPerSec = mean;
+        r.opsPerSecError = iterations > 1 ? Math.sqrt(var / (iterations - 1)) : 0;
+        r.bytesPerOp = totals[0] > 0 ? (double) totals[1] / totals[0] : 0;
+        return r;
+    }
+
+    // One iteration of `seconds` of timed work (or 20x that in wall time). Returns ops/s; adds ops and bytes to `totals`.
+    static double iteration(Fixture fx, double seconds, long[] totals) {
+        long budget = (long) (seconds * 1e9);
+        long timed = 0, ops = 0, bytes = 0;
+        long tid = Thread.currentThread().getId();
+        int batch = fx.batch();
+        long acc = 0;
+        // untimed preparation can dwarf cheap ops, so also cap the wall time spent per iteration
+        long wallStart = System.nanoTime();
+        while (timed < budget && (ops == 0 || System.nanoTime() - wallStart < budget * 20)) {
+            fx.prepare();
+            long b0 = THREADS.getThreadAllocatedBytes(tid);
+            long t0 = System.nanoTime();
+            for (int k = 0; k < batch; k++) acc += fx.op();
+            timed += System.nanoTime() - t0;
+            bytes += THREADS.getThreadAllocatedBytes(tid) - b0;
+            ops += batch;
+        }
+        sink = acc;
+        if (totals != null) { totals[0] += ops; totals[1] += bytes; }
+        return ops / (timed / 1e9);
+    }
+
+    // Play one game with and without the SIMD kernels side by side; they must stay identical.
+    static boolean checkSimd(int players, boolean random, int ticks) {
+        SimulationConfig config = SimulationConfig.DEFAULT.toBuilder().maxRounds(Integer.MAX_VALUE / 2).build();
+        // the kernels run at every size here, so the timings show where config.simdMinAlive should be
+        Simulator vec = new Simulator(1000, 500, 1, config.toBuilder().simdMinAlive(0).build()), ref = new Simulator(1000, 500, 1, config);
+        vec.randomMode = ref.randomMode = random;
+        vec.simd = true;
+        ref.simd = false;
+        vec.reset(players);
+        ref.reset(players);
+        int roundTicks = config.roundIntervalSeconds * 1000 / Simulator.TICK_MS;
+        int mismatchTick = -1;
+        for (int t = 1; t <= ticks && mismatchTick < 0; t++) {
+            vec.stepAnimation();
+            ref.stepAnimation();
+            if (t % roundTicks == 0) { vec.advanceRound(); ref.advanceRound(); }
+            if (!sameState(vec, ref)) mismatchTick = t;
+        }
+        int alive = vec.players.countAlive();
+        // combat thins the field within a few ticks, so time only the first three of each game; smaller
+        // games need more warm-up games before the kernels are compiled
+        int warmup = Math.max(1, 200_000 / players);
+        for (int game = 0; game < warmup + 5; game++) {
+            for (Simulator sim : new Simulator[]{vec, ref}) {
+                sim.reset(players);
+                if (game == warmup) sim.metrics.clear();
+                for (int t = 0; t < 3; t++) sim.stepAnimation();
+            }
+        }
+        double vecNs = vec.metrics.phase(SimulatorMetrics.MOVEMENT).mean();
+        double refNs = ref.metrics.phase(SimulatorMetrics.MOVEMENT).mean();
+        boolean ok = mismatchTick < 0;
+        System.out.printf(Locale.ROOT, "simd %9d players %-8s %d ticks, %d alive at end; movement %.1f us scalar, %.1f us simd (x%.2f) %s%n",
+                players, random ? "random" : "adaptive", ticks, alive, refNs / 1e3, vecNs / 1e3, refNs / Math.max(1, vecNs),
+                ok ? "ok" : "FAIL at tick " + mismatchTick);
+        return ok;
+    }
+
+    private static boolean sameState(Simulator a, Simulator b) {
+        ZoneMembership ma = a.membership, mb = b.membership;
+        if (a.players.size() != b.players.size() || a.players.countAlive() != b.players.countAlive()) return false;
+        if (ma.inside != mb.inside || ma.buffer != mb.buffer || ma.outside != mb.outside) return false;
+        for (int i = 0; i < a.players.size(); i++) {
+            if (a.players.isAlive(i) != b.players.isAlive(i) || ma.cls[i] != mb.cls[i]) return false;
+            if (!a.players.isAlive(i)) continue;
+            // compared as bits: the kernels must not differ even in the last ulp
+            if (Double.doubleToRawLongBits(a.players.x[i]) != Double.doubleToRawLongBits(b.players.x[i])
+                    || Double.doubleToRawLongBits(a.players.y[i]) != Double.doubleToRawLongBits(b.players.y[i])
+                    || Double.doubleToRawLongBits(ma.dist2[i]) != Double.doubleToRawLongBits(mb.dist2[i])) return false;
+        }
+        return true;
+    }
+
+    private static long gcCount() {
+        long c = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) c += Math.max(0, gc.getCollectionCount());
+        return c;
+    }
+
+    private static long gcMillis() {
+        long t = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) t += Math.max(0, gc.getCollectionTime());
+        return t;
+    }
+}
@@ -0,0 +1,156 @@
+package bluezone.contoller;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Drives a Simulator through one full game on a simulated clock, using the
+ * same schedule as the Swing panel: an animation tick every 30 ms, a
+ * countdown step every second, a round advance every
+ * `roundIntervalSeconds` (10) and a forced finish when the `gameSeconds`
+ * (60) countdown runs out, both taken from the simulator's config.
+ * Nothing here waits on wall time, so a game runs as fast as the CPU
+ * allows.
+ */
+public class Match {
+    public static final int TICK_MS = Simulator.TICK_MS;
+
+    public final Simulator sim;
+    public final List<Integer> playersInZoneHistory = new ArrayList<>();
+    public final List<Integer> deathsOutsideHistory = new ArrayList<>();
+    private int countdownSeconds;
+    private int lastMultipleTriggered = -1;
+    private long elapsedMs = 0;
+    private long nextSecondMs = 1000;
+    private boolean over = false;
+
+    public Match(Simulator sim) { this.sim = sim; this.countdownSeconds = sim.config.gameSeconds; }
+
+    // Spawn `players` players and rewind the clock and countdown.
+    public void start(int players) {
+        sim.reset(players);
+        sim.maxRounds = sim.config.maxRounds;
+        playersInZoneHistory.clear();
+        deathsOutsideHistory.clear();
+        countdownSeconds = sim.config.gameSeconds;
+        lastMultipleTriggered = -1;
+        elapsedMs = 0;
+        nextSecondMs = 1000;
+        over = false;
+    }
+
+    public boolean isOver() { return over; }
+    public int getCountdownSeconds() { return countdownSeconds; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    /**
+     * Advance the clock by one animation tick. Countdown steps that fall due
+     * up to and including the new time run first, then the animation tick.
+     * Returns false once the game is over.
+     */
+    public boolean tick() {
+        if (over) return false;
+        elapsedMs += TICK_MS;
+        while (!over && nextSecondMs <= elapsedMs) {
+            countdownStep();
+            nextSecondMs += 1000;
+        }
+        if (!over) animationStep();
+        return !over;
+    }
+
+    /**
+     * Skip ahead to the next round right away, as the panel's "Advance
+     * Round" button does: the countdown drops by one round interval and
+     * the round advances now rather than at the next boundary.
+     */
+    public void skipRound() {
+        if (over) return;
+        if (sim.isFinished()) { over = true; return; }
+        countdownSeconds = Math.max(0, countdownSeconds - sim.config.roundIntervalSeconds);
+        // prevent immediate double-trigger
+        lastMultipleTriggered = countdownSeconds;
+        advanceRound();
+    }
+
+    /**
+     * Pack the whole game, simulator and countdown alike, into a SimState.
+     * Must be called on the thread that ticks this match (between ticks).
+     */
+    public SimState snapshot() {
+        int bytes = SimState.HEADER_BYTES + sim.stateBytes() + 40 + 4 * (playersInZoneHistory.size() + deathsOutsideHistory.size());
+        ByteBuffer b = ByteBuffer.allocate(bytes).order(SimState.ORDER);
+        SimState.writeHeader(b, sim);
+        sim.writeState(b);
+        b.putInt(countdownSeconds).putInt(lastMultipleTriggered);
+        b.putLong(elapsedMs).putLong(nextSecondMs);
+        b.put((byte) (over ? 1 : 0));
+        b.putInt(playersInZoneHistory.size());
+        for (int v : playersInZoneHistory) b.putInt(v);
+        b.putInt(deathsOutsideHistory.size());
+        for (int v : deathsOutsideHistory) b.putInt(v);
+        return new SimState(sim.config, Arrays.copyOf(b.array(), b.position()));
+    }
+
+    /**
+     * Replace the current game with `state`, which must fit this match's
+     * simulator (same canvas and config). Play then continues exactly as
+     * it would have from where the state was taken.
+     */
+    public void restore(SimState state) {
+        if (!state.fits(sim)) throw new IllegalArgumentException("state was taken with a different canvas or config");
+        // as in Simulator.reset, the game being replaced goes to the process-wide totals
+        if (SimulatorMetrics.ENABLED) sim.metrics.flushToGlobal();
+        ByteBuffer b = state.buffer();
+        sim.readState(b);
+        countdownSeconds = b.getInt();
+        lastMultipleTriggered = b.getInt();
+        elapsedMs = b.getLong();
+        nextSecondMs = b.getLong();
+        over = b.get() != 0;
+        playersInZoneHistory.clear();
+        for (int k = b.getInt(); k > 0; k--) playersInZoneHistory.add(b.getInt());
+        deathsOutsideHistory.clear();
+        for (int k = b.getInt(); k > 0; k--) deathsOutsideHistory.add(b.getInt());
+    }
+
+    // Tick until the game is over.
+    public void runToEnd() {
+        while (tick()) { }
+    }
+
+    private void animationStep() {
+        sim.stepAnimation();
+        // if only one (or zero) player remains, finish immediately
+        if (sim.players.countAlive() <= 1 && !sim.isFinished()) {
+            sim.finishGame();
+            over = true;
+        }
+    }
+
+    private void countdownStep() {
+        if (sim.isFinished()) { over = true; return; }
+        countdownSeconds = Math.max(0, countdownSeconds - 1);
+        if (countdownSeconds == 0) {
+            // countdown ended -> finish game
+            sim.maxRounds = sim.config.maxRounds;
+            sim.finishGame();
+            over = true;
+            return;
+        }
+        if (countdownSeconds % sim.config.roundIntervalSeconds == 0 && countdownSeconds != lastMultipleTriggered) {
+            lastMultipleTriggered = countdownSeconds;
+            advanceRound();
+        }
+    }
+
+    // Advance one round and record how many alive players ended up inside / outside the new zone.
+    private void advanceRound() {
+        sim.advanceRound();
+        playersInZoneHistory.add(sim.membership.inside);
+        deathsOutsideHistory.add(sim.membership.notInside());
+        if (sim.isFinished()) over = true;
+    }
+}
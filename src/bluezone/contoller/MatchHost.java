@@ -0,0 +1,244 @@
+package bluezone.contoller;
+
+import bluezone.util.NanoHistogram;
+import bluezone.util.ResultsRecorder;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs many independent matches in real time on a few threads. Each
+ * thread (a shard) owns a timing wheel of 1 ms slots: a match sits in the
+ * slot of its next due tick, is ticked when the shard's clock reaches
+ * that slot and moves on by TICK_MS, so every match keeps its own 30 ms
+ * cadence and matches started at different times spread over the slots.
+ * Slots are intrusive linked lists, so ticking allocates nothing beyond
+ * what the match itself does. A finished match is recorded through
+ * ResultsRecorder (unless disabled), reported to the listener and
+ * dropped, so memory grows with the number of live matches only.
+ *
+ * When the shards cannot keep up, their clocks fall behind the wall clock
+ * rather than bunching ticks together; the lag shows up in the tick
+ * latency. Counters and latencies are published over JMX (MatchHostMXBean).
+ */
+public class MatchHost implements MatchHostMXBean {
+    public interface Listener {
+        // Called on a host thread once `match` is over (and recorded).
+        void finished(MatchHost host, Match match);
+    }
+
+    // slots per wheel; more than TICK_MS so a rescheduled match never lands in the slot being processed
+    static final int WHEEL = 64;
+    private static final int MASK = WHEEL - 1;
+    private static final AtomicInteger HOSTS = new AtomicInteger();
+
+    public final String name;
+    public final boolean record;
+    private final Listener listener;
+    private final Shard[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private long startNanos;
+    private ObjectName objectName;
+
+    /**
+     * A host with `threads` shards. With `record` every finished match
+     * goes to ResultsRecorder; `listener` may be null.
+     */
+    public MatchHost(int threads, boolean record, Listener listener) {
+        this.name = "host-" + HOSTS.incrementAndGet();
+        this.record = record;
+        this.listener = listener;
+        shards = new Shard[Math.max(1, threads)];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(i);
+    }
+
+    public synchronized void start() {
+        if (startNanos != 0) return;
+        startNanos = System.nanoTime();
+        for (Shard s : shards) s.start();
+        try {
+            objectName = new ObjectName("bluezone:type=MatchHost,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (Exception | LinkageError ex) {
+            objectName = null;
+            System.err.println("MatchHost MBean not registered: " + ex);
+        }
+    }
+
+    // Stop every shard (waiting up to a second each); unfinished matches are dropped unrecorded.
+    public synchronized void stop() throws InterruptedException {
+        for (Shard s : shards) s.running = false;
+        for (Shard s : shards) { LockSupport.unpark(s); s.join(1000); }
+        if (objectName != null) {
+            try { ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName); } catch (Exception ignored) { }
+            objectName = null;
+        }
+    }
+
+    /**
+     * Host `match`, which must already be started (Match.start). Its first
+     * tick is due within one tick interval. Safe to call from any thread,
+     * including the listener.
+     */
+    public void submit(Match match) {
+        Shard s = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        s.inbox.add(new Entry(match));
+        s.activeMatches.incrementAndGet();
+    }
+
+    // Milliseconds since start().
+    long nowMs() { return (System.nanoTime() - startNanos) / 1_000_000; }
+
+    static final class Entry {
+        final Match match;
+        // wheel time (ms since start) of the next tick
+        long due;
+        Entry next;
+        Entry(Match match) { this.match = match; }
+    }
+
+    private final class Shard extends Thread {
+        final ConcurrentLinkedQueue<Entry> inbox = new ConcurrentLinkedQueue<>();
+        final AtomicInteger activeMatches = new AtomicInteger();
+        final Entry[] wheel = new Entry[WHEEL];
+        volatile boolean running = true;
+        // guarded by this
+        final NanoHistogram latency = new NanoHistogram();
+        long ticks, started, finished, tickNanos;
+        // matches that finished in the slot being processed
+        final ArrayList<Match> done = new ArrayList<>();
+        // next slot to process (ms since start)
+        long cursor;
+        int stagger;
+
+        Shard(int index) {
+            super("match-host-" + name + "-" + index);
+            setDaemon(true);
+        }
+
+        @Override public void run() {
+            cursor = nowMs();
+            while (running) {
+                admit();
+                long now = nowMs();
+                if (cursor > now) {
+                    LockSupport.parkNanos((cursor - now) * 1_000_000L);
+                    continue;
+                }
+                processSlot(cursor++);
+            }
+        }
+
+        // Schedule newly submitted matches, spreading their first ticks over one interval.
+        private void admit() {
+            Entry e;
+            while ((e = inbox.poll()) != null) {
+                e.due = cursor + 1 + (stagger++ % Simulator.TICK_MS);
+                insert(e);
+                synchronized (this) { started++; }
+            }
+        }
+
+        private void insert(Entry e) {
+            int s = (int) (e.due & MASK);
+            e.next = wheel[s];
+            wheel[s] = e;
+        }
+
+        private void processSlot(long t) {
+            int s = (int) (t & MASK);
+            Entry e = wheel[s];
+            wheel[s] = null;
+            while (e != null) {
+                Entry next = e.next;
+                long t0 = System.nanoTime();
+                boolean more = e.match.tick();
+                long t1 = System.nanoTime();
+                synchronized (this) {
+                    ticks++;
+                    tickNanos += t1 - t0;
+                    latency.record(t1 - startNanos - e.due * 1_000_000L);
+                    if (!more) finished++;
+                }
+                if (more) {
+                    e.due += Simulator.TICK_MS;
+                    insert(e);
+                } else {
+                    activeMatches.decrementAndGet();
+                    done.add(e.match);
+                }
+                e = next;
+            }
+            // recording may block on a full log queue, so it runs with the shard unlocked
+            for (int i = 0; i < done.size(); i++) finish(done.get(i));
+            done.clear();
+        }
+
+        private void finish(Match m) {
+            if (record) {
+                try {
+                    ResultsRecorder.recordRun(m.sim, m.playersInZoneHistory, m.deathsOutsideHistory, m.getCountdownSeconds());
+                } catch (Exception ex) {
+                    System.err.println("Failed to record run: " + ex.getMessage());
+                }
+            }
+            if (listener != null) listener.finished(MatchHost.this, m);
+        }
+    }
+
+    private double seconds() { return startNanos == 0 ? 0 : (System.nanoTime() - startNanos) / 1e9; }
+
+    // Latencies of every shard merged.
+    public NanoHistogram tickLatency() {
+        NanoHistogram h = new NanoHistogram();
+        for (Shard s : shards) synchronized (s) { h.merge(s.latency); }
+        return h;
+    }
+
+    @Override public int getThreads() { return shards.length; }
+
+    @Override public long getActiveMatches() {
+        long n = 0;
+        for (Shard s : shards) n += s.activeMatches.get();
+        return n;
+    }
+
+    @Override public long getMatchesStarted() {
+        long n = 0;
+        for (Shard s : shards) synchronized (s) { n += s.started; }
+        return n;
+    }
+
+    @Override public long getMatchesFinished() {
+        long n = 0;
+        for (Shard s : shards) synchronized (s) { n += s.finished; }
+        return n;
+    }
+
+    @Override public long getTicks() {
+        long n = 0;
+        for (Shard s : shards) synchronized (s) { n += s.ticks; }
+        return n;
+    }
+
+    @Override public double getMatchesPerSecond() { double t = seconds(); return t > 0 ? getMatchesFinished() / t : 0; }
+    @Override public double getTicksPerSecond() { double t = seconds(); return t > 0 ? getTicks() / t : 0; }
+
+    @Override public double getTickTimeMeanMicros() {
+        long n = 0, nanos = 0;
+        for (Shard s : shards) synchronized (s) { n += s.ticks; nanos += s.tickNanos; }
+        return n > 0 ? nanos / 1e3 / n : 0;
+    }
+
+    @Override public long getTickLatencyP50Micros() { return tickLatency().percentile(0.50) / 1000; }
+    @Override public long getTickLatencyP99Micros() { return tickLatency().percentile(0.99) / 1000; }
+    @Override public long getTickLatencyMaxMicros() { return tickLatency().max() / 1000; }
+
+    @Override public void resetTickLatency() {
+        for (Shard s : shards) synchronized (s) { s.latency.clear(); }
+    }
+}
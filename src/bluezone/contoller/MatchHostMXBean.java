@@ -0,0 +1,23 @@
+package bluezone.contoller;
+
+/**
+ * JMX view of a MatchHost, registered as `bluezone:type=MatchHost,name=<name>`.
+ * Rates are averages since the host started. Tick latency is measured
+ * from the time a tick was due until it finished, so it includes both
+ * scheduling lag and the tick itself; it covers the time since the host
+ * started or since the last `resetTickLatency()`.
+ */
+public interface MatchHostMXBean {
+    int getThreads();
+    long getActiveMatches();
+    long getMatchesStarted();
+    long getMatchesFinished();
+    long getTicks();
+    double getMatchesPerSecond();
+    double getTicksPerSecond();
+    double getTickTimeMeanMicros();
+    long getTickLatencyP50Micros();
+    long getTickLatencyP99Micros();
+    long getTickLatencyMaxMicros();
+    void resetTickLatency();
+}
@@ -0,0 +1,24 @@
+package bluezone.contoller;
+
+import java.util.Map;
+
+/**
+ * JMX view of the simulator metrics accumulated over every finished game
+ * in this JVM, registered as `bluezone:type=SimulatorMetrics`. Phase maps
+ * are keyed by SimulatorMetrics.PHASE_NAMES.
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+    long getGames();
+    long getTicks();
+    long getRounds();
+    long getCombatKills();
+    long getOutsideKills();
+    long getRoundEliminations();
+    Map<String, Long> getPhaseCounts();
+    Map<String, Double> getPhaseMeanNanos();
+    Map<String, Long> getPhaseP50Nanos();
+    Map<String, Long> getPhaseP99Nanos();
+    Map<String, Long> getPhaseMaxNanos();
+    void reset();
+}
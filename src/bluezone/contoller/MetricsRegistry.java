@@ -0,0 +1,75 @@
+package bluezone.contoller;
+
+import bluezone.util.NanoHistogram;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Process-wide totals of SimulatorMetrics. Simulators add a game's
+ * numbers once it ends (under a lock, so once per game rather than per
+ * tick); JMX clients read them through MetricsMXBean.
+ */
+public final class MetricsRegistry implements MetricsMXBean {
+    public static final String OBJECT_NAME = "bluezone:type=SimulatorMetrics";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, new ObjectName(OBJECT_NAME));
+        } catch (Exception | LinkageError ex) {
+            // metrics still accumulate, they are just not visible over JMX
+            System.err.println("SimulatorMetrics MBean not registered: " + ex);
+        }
+    }
+
+    private final SimulatorMetrics totals = new SimulatorMetrics();
+    private long games = 0;
+
+    public static MetricsRegistry global() { return GLOBAL; }
+
+    synchronized void add(SimulatorMetrics game) {
+        totals.merge(game);
+        games++;
+    }
+
+    // Copy of the current totals.
+    public synchronized SimulatorMetrics snapshot() {
+        SimulatorMetrics copy = new SimulatorMetrics();
+        copy.merge(totals);
+        return copy;
+    }
+
+    @Override public boolean isEnabled() { return SimulatorMetrics.ENABLED; }
+    @Override public synchronized long getGames() { return games; }
+    @Override public synchronized long getTicks() { return totals.ticks; }
+    @Override public synchronized long getRounds() { return totals.rounds; }
+    @Override public synchronized long getCombatKills() { return totals.combatKills; }
+    @Override public synchronized long getOutsideKills() { return totals.outsideKills; }
+    @Override public synchronized long getRoundEliminations() { return totals.roundEliminations; }
+
+    @Override public Map<String, Long> getPhaseCounts() { return perPhase(NanoHistogram::count); }
+    @Override public Map<String, Long> getPhaseP50Nanos() { return perPhase(h -> h.percentile(0.50)); }
+    @Override public Map<String, Long> getPhaseP99Nanos() { return perPhase(h -> h.percentile(0.99)); }
+    @Override public Map<String, Long> getPhaseMaxNanos() { return perPhase(NanoHistogram::max); }
+
+    @Override public synchronized Map<String, Double> getPhaseMeanNanos() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        for (int p = 0; p < SimulatorMetrics.PHASE_NAMES.length; p++) m.put(SimulatorMetrics.PHASE_NAMES[p], totals.phase(p).mean());
+        return m;
+    }
+
+    private synchronized Map<String, Long> perPhase(ToLongFunction<NanoHistogram> f) {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (int p = 0; p < SimulatorMetrics.PHASE_NAMES.length; p++) m.put(SimulatorMetrics.PHASE_NAMES[p], f.applyAsLong(totals.phase(p)));
+        return m;
+    }
+
+    @Override public synchronized void reset() {
+        totals.clear();
+        games = 0;
+    }
+}
@@ -0,0 +1,224 @@
+package bluezone.contoller;
+
+import bluezone.model.PlayerStore;
+import bluezone.model.Zone;
+import bluezone.util.SplitMixStream;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Movement half of `Simulator.stepAnimation()`. Every alive player moves
+ * independently from its own state, the current zone and its own random
+ * stream, seeded from (tick seed, player id). Results therefore do not
+ * depend on iteration order, chunking or thread count.
+ *
+ * Players are split into chunks of CHUNK ids. A chunk covers whole words of
+ * the PlayerStore bitsets, so chunks running on different threads never
+ * write to the same `hasTarget` word. Large lobbies run the chunks on a
+ * fork-join pool; small ones run them inline on the calling thread. In the
+ * pool the calling thread and a few helper tasks take chunks off a shared
+ * counter. The caller then waits until every helper task is done (its
+ * ForkJoinTask status, not a count kept inside compute(), so a task is only
+ * reinitialized once the pool is through with it); joining a fork-join
+ * task instead would allocate a wait node whenever it blocks.
+ *
+ * Each moved player is also classified against the zone (see
+ * ZoneMembership) while its new position is still in registers, so the
+ * tick needs no second pass over the players for that. With
+ * `Simulator.simd` (and at least simdMinAlive players alive) the chunk is
+ * instead moved first and then clamped and classified in one SimdKernels
+ * pass over its ids; the steering itself (per-player draws, branches,
+ * Math.hypot) stays scalar either way.
+ */
+class MovementPhase {
+    // player ids per chunk; a multiple of 64 so chunks own whole bitset words
+    static final int CHUNK = 4096;
+
+    private final Simulator sim;
+    private Chunk[] chunks = new Chunk[0];
+    private Helper[] helpers = new Helper[0];
+    // next chunk to move, shared by the calling thread and the helpers
+    private final AtomicInteger nextChunk = new AtomicInteger();
+
+    // inputs for the tick being processed, written before the chunks run
+    private long tickSeed;
+    private double currentRadius;
+    private Zone zone;
+    private boolean simd;
+
+    MovementPhase(Simulator sim) { this.sim = sim; }
+
+    // Move every alive player once. `tickSeed` selects this tick's random streams.
+    void run(long tickSeed, double currentRadius) {
+        this.tickSeed = tickSeed;
+        this.currentRadius = currentRadius;
+        this.zone = sim.adaptiveLeft;
+        this.simd = sim.useSimd();
+        int n = sim.players.size();
+        ZoneMembership zm = sim.membership;
+        zm.begin(n, sim.zoneCentreX(), sim.zoneCentreY(), currentRadius, sim.config.approachBuffer);
+        int count = (n + CHUNK - 1) / CHUNK;
+        if (chunks.length != count) {
+            chunks = new Chunk[count];
+            for (int c = 0; c < count; c++) chunks[c] = new Chunk();
+        }
+        for (int c = 0; c < count; c++) {
+            chunks[c].lo = c * CHUNK;
+            chunks[c].hi = Math.min(n, (c + 1) * CHUNK);
+        }
+        ForkJoinPool pool = sim.movementPool;
+        if (count <= 1 || pool == null || pool.getParallelism() <= 1
+                || sim.players.countAlive() < sim.parallelMovementThreshold) {
+            for (Chunk c : chunks) c.move();
+        } else {
+            runPooled(pool, count);
+        }
+        for (Chunk c : chunks) zm.addCounts(c.counts[ZoneMembership.INSIDE], c.counts[ZoneMembership.BUFFER], c.counts[ZoneMembership.OUTSIDE]);
+    }
+
+    private void runPooled(ForkJoinPool pool, int count) {
+        int h = Math.min(pool.getParallelism(), count) - 1;
+        if (helpers.length != h) {
+            helpers = new Helper[h];
+            for (int k = 0; k < h; k++) helpers[k] = new Helper();
+        }
+        nextChunk.set(0);
+        for (Helper helper : helpers) {
+            helper.reinitialize();
+            pool.execute(helper);
+        }
+        try {
+            moveChunks();
+        } finally {
+            // a helper still queued finds no chunks left: take it back and run it here if the pool allows,
+            // otherwise it finishes as soon as a worker picks it up
+            for (Helper helper : helpers) {
+                if (helper.tryUnfork()) helper.quietlyInvoke();
+                while (!helper.isDone()) Thread.yield();
+            }
+        }
+        // rethrows what a helper threw; the task is done, so this never blocks
+        for (Helper helper : helpers) if (helper.isCompletedAbnormally()) helper.join();
+    }
+
+    // Move chunks until none are left.
+    private void moveChunks() {
+        for (int c; (c = nextChunk.getAndIncrement()) < chunks.length; ) chunks[c].move();
+    }
+
+    private final class Helper extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override protected void compute() {
+            try {
+                moveChunks();
+            } catch (RuntimeException | Error ex) {
+                // stop the others early; the caller rethrows
+                nextChunk.set(chunks.length);
+                throw ex;
+            }
+        }
+    }
+
+    private final class Chunk {
+        int lo, hi;
+        final SplitMixStream rnd = new SplitMixStream();
+        // zone membership counts of this chunk's players
+        final int[] counts = new int[3];
+
+        void move() {
+            final PlayerStore ps = sim.players;
+            final ZoneMembership zm = sim.membership;
+            counts[0] = counts[1] = counts[2] = 0;
+            final boolean fused = !simd;
+            for (int w = lo >>> 6, end = (hi + 63) >>> 6; w < end; w++) {
+                long bits = ps.aliveWord(w);
+                while (bits != 0) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    rnd.seed(tickSeed, i);
+                    movePlayer(ps, i, rnd, fused);
+                    if (fused) counts[zm.classify(i, ps.x[i], ps.y[i])]++;
+                }
+            }
+            if (!fused) SimdKernels.INSTANCE.clampAndClassify(ps, zm, lo, hi, true, 12, sim.canvasW - 12, 12, sim.canvasH - 12, counts);
+        }
+    }
+
+    // Move player `i` one step; the final clamp to the map is left to the caller unless `clampHere`.
+    // Players slowly steer toward the current adaptive zone at a low approach speed, with a
+    // little random jitter so movement doesn't look perfectly uniform.
+    private void movePlayer(PlayerStore ps, int i, SplitMixStream rnd, boolean clampHere) {
+        final double[] px = ps.x, py = ps.y, tx = ps.targetX, ty = ps.targetY;
+        final int canvasW = sim.canvasW, canvasH = sim.canvasH;
+        // decide per-player whether they actively approach the zone this tick or just roam
+        double act = ps.activity[i];
+        // extra random jitter applied to movement
+        final double jitter = sim.config.approachJitter;
+        double approachChance = 0.45 + (act - 0.5) * 0.4; // lower base so fewer always approach
+        approachChance = Math.max(0.05, Math.min(0.9, approachChance));
+        boolean willApproach = rnd.nextDouble() < approachChance;
+
+        if (zone != null && willApproach) {
+            // ensure player has a distinct interior target inside the zone (not the exact center)
+            if (!ps.hasTarget(i)) {
+                double targetRadius = Math.max(10, currentRadius * 0.55);
+                double angle = rnd.nextDouble() * Math.PI * 2;
+                double r = rnd.nextDouble() * targetRadius;
+                tx[i] = clamp(zone.x + Math.cos(angle) * r, 12, canvasW - 12);
+                ty[i] = clamp(zone.y + Math.sin(angle) * r, 12, canvasH - 12);
+                ps.setHasTarget(i, true);
+            }
+            double dx = tx[i] - px[i];
+            double dy = ty[i] - py[i];
+            double dist = Math.hypot(dx, dy);
+            double speed = sim.config.approachBase + act * 0.4;
+            if (dist > 1e-6) {
+                double vx = dx / dist * speed;
+                double vy = dy / dist * speed;
+                vx += rnd.next(-1, 1) * jitter * 0.5;
+                vy += rnd.next(-1, 1) * jitter * 0.5;
+                px[i] += vx; py[i] += vy;
+            }
+            // if reached target, occasionally pick a new one (so players move around inside)
+            if (dist <= speed * 1.5 || rnd.nextDouble() < 0.02) {
+                ps.setHasTarget(i, false);
+            }
+        } else {
+            // roaming behavior: pick a short-range wandering target or sometimes dash elsewhere
+            if (!ps.hasTarget(i) || rnd.nextDouble() < 0.01) {
+                if (rnd.nextDouble() < 0.2) {
+                    // occasional dash to a random map point
+                    tx[i] = rnd.next(20, canvasW - 20);
+                    ty[i] = rnd.next(20, canvasH - 20);
+                } else {
+                    // local wander target
+                    tx[i] = clamp(px[i] + rnd.next(-80, 80), 12, canvasW - 12);
+                    ty[i] = clamp(py[i] + rnd.next(-80, 80), 12, canvasH - 12);
+                }
+                ps.setHasTarget(i, true);
+            }
+            double dx = tx[i] - px[i];
+            double dy = ty[i] - py[i];
+            double dist = Math.hypot(dx, dy);
+            double speed = 0.4 + act * 1.2;
+            if (dist > 1e-6) {
+                double vx = dx / dist * speed;
+                double vy = dy / dist * speed;
+                vx += rnd.next(-1, 1) * jitter;
+                vy += rnd.next(-1, 1) * jitter;
+                px[i] += vx; py[i] += vy;
+            }
+            if (dist <= speed * 1.5) ps.setHasTarget(i, false);
+        }
+        if (clampHere) {
+            px[i] = clamp(px[i], 12, canvasW - 12);
+            py[i] = clamp(py[i], 12, canvasH - 12);
+        }
+    }
+
+    private static double clamp(double v, double a, double b)
+    { return Math.max(a, Math.min(b, v)); }
+}
@@ -0,0 +1,160 @@
+package bluezone.contoller;
+
+import bluezone.util.SplitMixStream;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Monte Carlo win estimates from a mid-game SimState: the state is forked
+ * many times, every fork is reseeded and played to the end, and the
+ * winners are counted per player id. Rollouts are handed out in small
+ * blocks to a fixed set of worker threads, each working on a pooled
+ * match, so one estimate uses every worker and several estimates queue
+ * up behind each other.
+ *
+ * Rollout `k` of an estimate with seed `s` always plays the same future,
+ * so without a time budget the result does not depend on the thread
+ * count. With a budget, workers stop claiming blocks once it runs out and
+ * the estimate covers the rollouts finished by then.
+ */
+public class RolloutService implements AutoCloseable {
+    // rollouts a worker claims at a time
+    static final int BLOCK = 8;
+    private static final AtomicInteger SERVICES = new AtomicInteger();
+
+    public final int threads;
+    private final ExecutorService workers;
+    private final SimulatorPool pool;
+
+    /** Win counts of one estimate. */
+    public static final class Estimate {
+        // header of the state the rollouts started from
+        public final long tick;
+        public final int round, alive;
+        // rollouts played to the end
+        public final int rollouts;
+        // wins[id] = rollouts won by player `id`
+        public final int[] wins;
+        public final long nanos;
+
+        Estimate(SimState from, int rollouts, int[] wins, long nanos) {
+            this.tick = from.tick; this.round = from.round; this.alive = from.alive;
+            this.rollouts = rollouts; this.wins = wins; this.nanos = nanos;
+        }
+
+        public double winProbability(int id) { return rollouts > 0 && id < wins.length ? (double) wins[id] / rollouts : 0; }
+
+        // Standard error of `winProbability(id)`.
+        public double standardError(int id) {
+            double p = winProbability(id);
+            return rollouts > 0 ? Math.sqrt(p * (1 - p) / rollouts) : 0;
+        }
+
+        // Ids of the (at most) `k` players with the most wins, most first; players that never won are left out.
+        public int[] leaders(int k) {
+            int[] top = new int[Math.max(0, k)];
+            int m = 0;
+            for (int id = 0; id < wins.length && k > 0; id++) {
+                if (wins[id] == 0 || (m == k && wins[top[k - 1]] >= wins[id])) continue;
+                // insertion into a short sorted list; ties keep the lower id first
+                int pos = m < k ? m++ : k - 1;
+                while (pos > 0 && wins[top[pos - 1]] < wins[id]) { top[pos] = top[pos - 1]; pos--; }
+                top[pos] = id;
+            }
+            return Arrays.copyOf(top, m);
+        }
+    }
+
+    public RolloutService(int threads) {
+        this.threads = Math.max(1, threads);
+        int service = SERVICES.incrementAndGet();
+        AtomicInteger worker = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "rollout-" + service + "-" + worker.incrementAndGet());
+            t.setDaemon(true);
+            // the game being estimated, and the UI showing it, come first
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        pool = new SimulatorPool(this.threads * 2);
+    }
+
+    /**
+     * Start an estimate of `rollouts` futures of `from`, reseeded from
+     * `seed`. With `budgetNanos` > 0 it completes after roughly that long
+     * even if not every rollout was played.
+     */
+    public CompletableFuture<Estimate> submit(SimState from, int rollouts, long seed, long budgetNanos) {
+        Job job = new Job(from, rollouts, seed, budgetNanos);
+        for (int t = 0; t < threads; t++) workers.execute(job::work);
+        return job.result;
+    }
+
+    // Play all `rollouts` futures of `from` and wait for the result.
+    public Estimate estimate(SimState from, int rollouts, long seed) throws InterruptedException, ExecutionException {
+        return submit(from, rollouts, seed, 0).get();
+    }
+
+    @Override public void close() { workers.shutdownNow(); }
+
+    private final class Job {
+        final SimState from;
+        final int rollouts;
+        final long seed;
+        final long start, deadline;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger(threads);
+        final CompletableFuture<Estimate> result = new CompletableFuture<>();
+        // guarded by this
+        final int[] wins;
+        int played;
+
+        Job(SimState from, int rollouts, long seed, long budgetNanos) {
+            this.from = from;
+            this.rollouts = rollouts;
+            this.seed = seed;
+            this.start = System.nanoTime();
+            this.deadline = budgetNanos > 0 ? start + budgetNanos : Long.MAX_VALUE;
+            this.wins = new int[from.players];
+        }
+
+        void work() {
+            int[] local = null;
+            int done = 0;
+            Match m = null;
+            try {
+                local = new int[from.players];
+                SplitMixStream seeds = new SplitMixStream();
+                int k;
+                while (!result.isDone() && System.nanoTime() < deadline && (k = next.getAndAdd(BLOCK)) < rollouts) {
+                    for (int end = Math.min(rollouts, k + BLOCK); k < end; k++) {
+                        if (m == null) m = pool.fork(from); else m.restore(from);
+                        seeds.seed(seed, k);
+                        m.sim.reseed(seeds.nextLong());
+                        m.runToEnd();
+                        int w = m.sim.winnerLeftId;
+                        if (w >= 0 && w < local.length) local[w]++;
+                        done++;
+                    }
+                }
+            } catch (Throwable ex) {
+                // an Error too, or the caller would wait on the result forever
+                result.completeExceptionally(ex);
+            } finally {
+                if (m != null) pool.release(m);
+                synchronized (this) {
+                    if (local != null) for (int i = 0; i < local.length; i++) wins[i] += local[i];
+                    played += done;
+                }
+                if (running.decrementAndGet() == 0) {
+                    synchronized (this) { result.complete(new Estimate(from, played, wins, System.nanoTime() - start)); }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package bluezone.contoller;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Complete state of a Match at one point in time (players, alive order,
+ * zone, round, timers, adaptive zone weights, random generator and the
+ * countdown), packed into a single byte buffer: about 70 bytes per player
+ * plus a small header. Taken with `Match.snapshot()`; `fork()` or
+ * SimulatorPool restores it into a Match that continues exactly where the
+ * original was, with the same draws unless it is reseeded
+ * (`Simulator.reseed`). Unlike FrameSnapshot, which only carries what the
+ * panel draws, a SimState can be played on.
+ *
+ * The buffer holds no config knobs; a state is restored with the config
+ * it was taken with (`config`), so `toBytes` / `fromBytes` must be given
+ * the same one. Immutable once taken, so one state can feed many forks
+ * on different threads.
+ */
+public final class SimState {
+    static final int MAGIC = 0x425A5332; // "BZS2"
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int HEADER_BYTES = 32;
+
+    public final SimulationConfig config;
+    // header fields, also readable without restoring
+    public final int canvasW, canvasH;
+    public final int players, alive;
+    public final long tick;
+    public final int round;
+    private final byte[] data;
+
+    SimState(SimulationConfig config, byte[] data) {
+        ByteBuffer b = ByteBuffer.wrap(data).order(ORDER);
+        if (data.length < 32 || b.getInt() != MAGIC) throw new IllegalArgumentException("not a simulator state");
+        this.config = config;
+        this.data = data;
+        canvasW = b.getInt();
+        canvasH = b.getInt();
+        players = b.getInt();
+        alive = b.getInt();
+        tick = b.getLong();
+        round = b.getInt();
+    }
+
+    // Size of the packed state in bytes.
+    public int size() { return data.length; }
+
+    // A fresh Match (not pooled) continuing from this state.
+    public Match fork() {
+        Simulator sim = new Simulator(canvasW, canvasH, 0, config);
+        Match m = new Match(sim);
+        m.restore(this);
+        return m;
+    }
+
+    // Whether `sim` can take this state: same canvas and config.
+    public boolean fits(Simulator sim) {
+        return sim.canvasW == canvasW && sim.canvasH == canvasH && sim.config == config;
+    }
+
+    // A read-only view of the buffer, positioned after the header.
+    ByteBuffer buffer() {
+        ByteBuffer b = ByteBuffer.wrap(data).asReadOnlyBuffer().order(ORDER);
+        b.position(HEADER_BYTES);
+        return b;
+    }
+
+    // Write the header of a state of `sim` into `b`.
+    static void writeHeader(ByteBuffer b, Simulator sim) {
+        b.putInt(MAGIC);
+        b.putInt(sim.canvasW).putInt(sim.canvasH);
+        b.putInt(sim.players.size()).putInt(sim.players.countAlive());
+        b.putLong(sim.tick);
+        b.putInt(sim.round);
+    }
+
+    // Copy of the packed state, e.g. to write to a file.
+    public byte[] toBytes() { return data.clone(); }
+
+    // A state read back from `toBytes`; `config` must be the one it was taken with.
+    public static SimState fromBytes(SimulationConfig config, byte[] bytes) { return new SimState(config, bytes.clone()); }
+}
@@ -0,0 +1,40 @@
+package bluezone.contoller;
+
+import bluezone.model.PlayerStore;
+
+/**
+ * Vector API kernels for the data-parallel tail of a tick (see
+ * VectorKernels). Their implementation is the only code that needs the
+ * incubating jdk.incubator.vector module, so it is built in a source set
+ * of its own (simd/) and loaded by name here: the rest of the simulator
+ * compiles and runs without the module. When the class is missing, or
+ * the JVM runs without the module, INSTANCE is null and every caller
+ * keeps its scalar path (Simulator.SIMD_AVAILABLE).
+ */
+interface SimdKernels {
+    // the kernels, or null when they cannot run in this JVM
+    SimdKernels INSTANCE = load();
+
+    // doubles per vector of the species the kernels use
+    int lanes();
+
+    /**
+     * Classify the alive players among ids [lo, hi) against the zone `zm`
+     * was begun with, after clamping their positions to [minX, maxX] x
+     * [minY, maxY] if `clamp` is set. Dead players' entries are left as
+     * `begin` set them. Adds the players per class to `counts`. `lo` must
+     * be a multiple of 64. Results are bit-identical to
+     * `ZoneMembership.classify`.
+     */
+    void clampAndClassify(PlayerStore ps, ZoneMembership zm, int lo, int hi,
+                          boolean clamp, double minX, double maxX, double minY, double maxY, int[] counts);
+
+    private static SimdKernels load() {
+        try {
+            return (SimdKernels) Class.forName("bluezone.contoller.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not built, or jdk.incubator.vector is not in this JVM
+            return null;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package bluezone.contoller;
+
+import bluezone.util.JsonWriter;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of the tuning knobs of a game: zone schedule, combat,
+ * movement, the outside timer, adaptive zone weighting and the random
+ * eliminations of round advances. DEFAULT reproduces the original game;
+ * variants are made with a Builder (`DEFAULT.toBuilder()...build()`).
+ *
+ * Every scalar knob also has a name (KNOBS) so parameter sweeps can set it
+ * generically through `Builder.set(name, value)`. `radiusScale` is a
+ * sweep-only knob that scales every entry of the radius schedule.
+ *
+ * `counterRng` picks the random generator: false (the default) draws from
+ * one sequential stream, so a game depends on the order of every draw;
+ * true addresses every draw by (seed, tick, player, purpose) with a
+ * counter-based PhiloxRandom (see Simulator).
+ *
+ * `parallelMovementThreshold` and `simdMinAlive` only decide how a tick
+ * is computed (from how many alive players the movement phase runs on the
+ * fork-join pool, and uses the Vector API kernels), never what it computes.
+ */
+public final class SimulationConfig {
+    public static final SimulationConfig DEFAULT = new Builder().build();
+
+    public static final String[] KNOBS = {
+        "maxRounds", "minRounds", "gameSeconds", "roundIntervalSeconds",
+        "combatRadius", "approachBase", "approachJitter", "approachBuffer", "outsideLimitMs",
+        "weightBase", "weightKills", "weightActivity", "zoneJitter",
+        "roundElimCap", "roundElimFraction", "finalElimCap", "radiusScale",
+        "parallelMovementThreshold", "simdMinAlive"
+    };
+
+    // zone radius per round; rounds past the end keep the last entry
+    private final double[] roundRadii;
+    public final int maxRounds;
+    // minimum rounds that must be played before a winner can be declared
+    public final int minRounds;
+    // countdown length and seconds between round advances (Match schedule)
+    public final int gameSeconds, roundIntervalSeconds;
+    // players closer than this (pixels) may fight during an animation tick
+    public final double combatRadius;
+    // approach speed base (pixels per tick) and random jitter added to movement
+    public final double approachBase, approachJitter;
+    // players within this many pixels outside the radius may still approach and are not timed out
+    public final double approachBuffer;
+    // time far outside the zone after which a player is eliminated, and the same in ticks
+    public final int outsideLimitMs, outsideLimitTicks;
+    // adaptive zone weight of a player: weightBase + kills * weightKills + activity * weightActivity
+    public final double weightBase, weightKills, weightActivity;
+    // max offset (pixels) of a sampled adaptive zone centre from the chosen player
+    public final double zoneJitter;
+    // a round advance eliminates 1..min(roundElimCap, max(1, alive * roundElimFraction)) players
+    public final int roundElimCap;
+    public final double roundElimFraction;
+    // the final cut-down to one survivor eliminates 1..finalElimCap players per step
+    public final int finalElimCap;
+    // draw from a counter-based generator instead of one sequential stream
+    public final boolean counterRng;
+    // below this many alive players movement always runs on the calling thread
+    public final int parallelMovementThreshold;
+    // below this many alive players the scalar path is used even where the SIMD kernels could run: until
+    // the JIT has compiled them the kernels are many times slower, and smaller games do not win that back
+    public final int simdMinAlive;
+
+    private SimulationConfig(Builder b) {
+        roundRadii = b.roundRadii.clone();
+        maxRounds = b.maxRounds;
+        minRounds = b.minRounds;
+        gameSeconds = b.gameSeconds;
+        roundIntervalSeconds = b.roundIntervalSeconds;
+        combatRadius = b.combatRadius;
+        approachBase = b.approachBase;
+        approachJitter = b.approachJitter;
+        approachBuffer = b.approachBuffer;
+        outsideLimitMs = b.outsideLimitMs;
+        outsideLimitTicks = (outsideLimitMs + Simulator.TICK_MS - 1) / Simulator.TICK_MS;
+        weightBase = b.weightBase;
+        weightKills = b.weightKills;
+        weightActivity = b.weightActivity;
+        zoneJitter = b.zoneJitter;
+        roundElimCap = b.roundElimCap;
+        roundElimFraction = b.roundElimFraction;
+        finalElimCap = b.finalElimCap;
+        counterRng = b.counterRng;
+        parallelMovementThreshold = b.parallelMovementThreshold;
+        simdMinAlive = b.simdMinAlive;
+    }
+
+    public double[] roundRadii() { return roundRadii.clone(); }
+
+    // Zone radius in round `round`.
+    public double radius(int round) { return roundRadii[Math.min(round, roundRadii.length - 1)]; }
+
+    public Builder toBuilder() { return new Builder(this); }
+
+    public JsonWriter writeJson(JsonWriter w) {
+        w.raw('{');
+        w.key("roundRadii").raw('[');
+        for (int r = 0; r < roundRadii.length; r++) {
+            if (r > 0) w.raw(',');
+            w.fixed(roundRadii[r], 3);
+        }
+        w.raw("],");
+        w.key("maxRounds").number(maxRounds).raw(',');
+        w.key("minRounds").number(minRounds).raw(',');
+        w.key("gameSeconds").number(gameSeconds).raw(',');
+        w.key("roundIntervalSeconds").number(roundIntervalSeconds).raw(',');
+        w.key("combatRadius").fixed(combatRadius, 4).raw(',');
+        w.key("approachBase").fixed(approachBase, 4).raw(',');
+        w.key("approachJitter").fixed(approachJitter, 4).raw(',');
+        w.key("approachBuffer").fixed(approachBuffer, 4).raw(',');
+        w.key("outsideLimitMs").number(outsideLimitMs).raw(',');
+        w.key("weightBase").fixed(weightBase, 4).raw(',');
+        w.key("weightKills").fixed(weightKills, 4).raw(',');
+        w.key("weightActivity").fixed(weightActivity, 4).raw(',');
+        w.key("zoneJitter").fixed(zoneJitter, 4).raw(',');
+        w.key("roundElimCap").number(roundElimCap).raw(',');
+        w.key("roundElimFraction").fixed(roundElimFraction, 4).raw(',');
+        w.key("finalElimCap").number(finalElimCap).raw(',');
+        w.key("parallelMovementThreshold").number(parallelMovementThreshold).raw(',');
+        w.key("simdMinAlive").number(simdMinAlive).raw(',');
+        w.key("rng").string(counterRng ? "counter" : "sequential");
+        return w.raw('}');
+    }
+
+    @Override public String toString() { return writeJson(new JsonWriter(512)).toString(); }
+
+    public static class Builder {
+        private double[] roundRadii = {280, 240, 200, 160, 140, 100, 80};
+        private int maxRounds = 6, minRounds = 3;
+        private int gameSeconds = 60, roundIntervalSeconds = 10;
+        private double combatRadius = 12.0;
+        private double approachBase = 0.2, approachJitter = 0.25, approachBuffer = 60.0;
+        private int outsideLimitMs = 10000;
+        private double weightBase = 1, weightKills = 0.8, weightActivity = 2;
+        private double zoneJitter = 60;
+        private int roundElimCap = 8;
+        private double roundElimFraction = 0.5;
+        private int finalElimCap = 5;
+        private boolean counterRng = false;
+        private int parallelMovementThreshold = 16384;
+        private int simdMinAlive = 32768;
+
+        public Builder() { }
+
+        Builder(SimulationConfig c) {
+            roundRadii = c.roundRadii.clone();
+            maxRounds = c.maxRounds; minRounds = c.minRounds;
+            gameSeconds = c.gameSeconds; roundIntervalSeconds = c.roundIntervalSeconds;
+            combatRadius = c.combatRadius;
+            approachBase = c.approachBase; approachJitter = c.approachJitter; approachBuffer = c.approachBuffer;
+            outsideLimitMs = c.outsideLimitMs;
+            weightBase = c.weightBase; weightKills = c.weightKills; weightActivity = c.weightActivity;
+            zoneJitter = c.zoneJitter;
+            roundElimCap = c.roundElimCap; roundElimFraction = c.roundElimFraction;
+            finalElimCap = c.finalElimCap;
+            counterRng = c.counterRng;
+            parallelMovementThreshold = c.parallelMovementThreshold;
+            simdMinAlive = c.simdMinAlive;
+        }
+
+        public Builder roundRadii(double... radii) {
+            if (radii.length == 0) throw new IllegalArgumentException("roundRadii must not be empty");
+            roundRadii = radii.clone();
+            return this;
+        }
+        public Builder maxRounds(int v) { maxRounds = v; return this; }
+        public Builder minRounds(int v) { minRounds = v; return this; }
+        public Builder gameSeconds(int v) { gameSeconds = v; return this; }
+        public Builder roundIntervalSeconds(int v) { roundIntervalSeconds = v; return this; }
+        public Builder combatRadius(double v) { combatRadius = v; return this; }
+        public Builder approachBase(double v) { approachBase = v; return this; }
+        public Builder approachJitter(double v) { approachJitter = v; return this; }
+        public Builder approachBuffer(double v) { approachBuffer = v; return this; }
+        public Builder outsideLimitMs(int v) { outsideLimitMs = v; return this; }
+        public Builder weightBase(double v) { weightBase = v; return this; }
+        public Builder weightKills(double v) { weightKills = v; return this; }
+        public Builder weightActivity(double v) { weightActivity = v; return this; }
+        public Builder zoneJitter(double v) { zoneJitter = v; return this; }
+        public Builder roundElimCap(int v) { roundElimCap = v; return this; }
+        public Builder roundElimFraction(double v) { roundElimFraction = v; return this; }
+        public Builder finalElimCap(int v) { finalElimCap = v; return this; }
+        public Builder counterRng(boolean v) { counterRng = v; return this; }
+        public Builder parallelMovementThreshold(int v) { parallelMovementThreshold = v; return this; }
+        public Builder simdMinAlive(int v) { simdMinAlive = v; return this; }
+
+        // Set the knob called `name` (see KNOBS); integer knobs are rounded.
+        public Builder set(String name, double v) {
+            int i = (int) Math.round(v);
+            switch (name) {
+                case "maxRounds": return maxRounds(i);
+                case "minRounds": return minRounds(i);
+                case "gameSeconds": return gameSeconds(i);
+                case "roundIntervalSeconds": return roundIntervalSeconds(i);
+                case "combatRadius": return combatRadius(v);
+                case "approachBase": return approachBase(v);
+                case "approachJitter": return approachJitter(v);
+                case "approachBuffer": return approachBuffer(v);
+                case "outsideLimitMs": return outsideLimitMs(i);
+                case "weightBase": return weightBase(v);
+                case "weightKills": return weightKills(v);
+                case "weightActivity": return weightActivity(v);
+                case "zoneJitter": return zoneJitter(v);
+                case "roundElimCap": return roundElimCap(i);
+                case "roundElimFraction": return roundElimFraction(v);
+                case "finalElimCap": return finalElimCap(i);
+                case "parallelMovementThreshold": return parallelMovementThreshold(i);
+                case "simdMinAlive": return simdMinAlive(i);
+                case "radiusScale":
+                    double[] scaled = roundRadii.clone();
+                    for (int r = 0; r < scaled.length; r++) scaled[r] *= v;
+                    return roundRadii(scaled);
+                default: throw new IllegalArgumentException("unknown knob " + name + ", expected one of " + Arrays.toString(KNOBS));
+            }
+        }
+
+        // Check the knobs are usable and build the config.
+        public SimulationConfig build() {
+            check(maxRounds >= 1 && minRounds >= 0 && minRounds <= maxRounds, "need 0 <= minRounds <= maxRounds, maxRounds >= 1");
+            check(gameSeconds >= 1 && roundIntervalSeconds >= 1, "gameSeconds and roundIntervalSeconds must be positive");
+            // the combat grid uses the radius as its cell size
+            check(combatRadius >= 0.5, "combatRadius must be at least 0.5");
+            check(approachBase >= 0 && approachJitter >= 0 && approachBuffer >= 0, "movement knobs must not be negative");
+            check(outsideLimitMs >= 0, "outsideLimitMs must not be negative");
+            // dead players weigh 0, so alive ones must weigh more
+            check(weightBase > 0 && weightKills >= 0 && weightActivity >= 0, "need weightBase > 0 and non-negative kill/activity weights");
+            check(zoneJitter >= 0, "zoneJitter must not be negative");
+            check(roundElimCap >= 1 && roundElimFraction >= 0 && finalElimCap >= 1, "elimination caps must be at least 1");
+            for (double r : roundRadii) check(r > 0, "round radii must be positive");
+            check(parallelMovementThreshold >= 0, "parallelMovementThreshold must not be negative");
+            check(simdMinAlive >= 0, "simdMinAlive must not be negative");
+            return new SimulationConfig(this);
+        }
+
+        private static void check(boolean ok, String message) {
+            if (!ok) throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package bluezone.contoller;
+
+import bluezone.model.FrameSnapshot;
+import bluezone.model.PlayerStore;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a Match on its own thread so a slow tick never blocks the UI.
+ *
+ * At speed N the loop runs N ticks per TICK_MS of wall time on a fixed
+ * timestep (falling behind by more than MAX_CATCH_UP ticks drops the
+ * backlog instead of spiralling); speed 0 runs ticks back to back and
+ * publishes once per FRAME_MS. After each batch of ticks the loop copies
+ * the visible state into a FrameSnapshot and publishes it through a
+ * lock-free triple buffer: the writer fills its private back buffer and
+ * swaps it into the middle slot, the reader swaps the middle slot out
+ * only when it holds a newer frame. Neither side ever waits, and a
+ * snapshot is never written while the reader holds it.
+ *
+ * A viewer showing part of a large world sets a View: only players in it
+ * are copied, and once they exceed what the viewer can draw the snapshot
+ * carries per-tile counts instead, so the copy stays proportional to the
+ * screen rather than to the player count.
+ *
+ * The Match and its Simulator belong to the loop thread once started;
+ * anything else that touches them (reset, skip round, recording) goes
+ * through `submit` and runs between ticks.
+ */
+public class SimulationLoop {
+    public static final long TICK_NANOS = Simulator.TICK_MS * 1_000_000L;
+    public static final long FRAME_MS = 16;
+    public static final int MAX_CATCH_UP = 5;
+
+    /** Called on the loop thread once per game, right after it ends. */
+    public interface Listener { void gameOver(Match match); }
+
+    /**
+     * The world rectangle a viewer shows, cut into `tileCols` x `tileRows`
+     * screen tiles. Players up to `margin` world units outside it are
+     * copied too (their markers reach into view). At most `maxPlayers` are
+     * copied; beyond that the snapshot switches to tile counts.
+     */
+    public static final class View {
+        public final double x0, y0, x1, y1, margin;
+        public final int tileCols, tileRows, maxPlayers;
+
+        public View(double x0, double y0, double x1, double y1, double margin, int tileCols, int tileRows, int maxPlayers) {
+            this.x0 = x0; this.y0 = y0; this.x1 = x1; this.y1 = y1; this.margin = margin;
+            this.tileCols = Math.max(1, tileCols); this.tileRows = Math.max(1, tileRows);
+            this.maxPlayers = maxPlayers;
+        }
+    }
+
+    public final Match match;
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private volatile Listener listener;
+    // null: every alive player is copied
+    private volatile View view;
+    private volatile boolean paused = false;
+    private volatile boolean running = false;
+    // ticks per TICK_MS of wall time; 0 = as fast as possible
+    private volatile int speed = 1;
+    private volatile long ticksRun = 0;
+    private Thread thread;
+
+    // loop-thread state
+    private boolean started = false;
+    private boolean overReported = false;
+    private long seq = 0;
+
+    // triple buffer: writer owns `back`, reader owns `front`, `middle` is the shared slot
+    private static final int FRESH = 4;
+    private final FrameSnapshot[] buffers = {new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 2;
+    private int front = 0;
+
+    public SimulationLoop(Match match) { this.match = match; }
+
+    public void setListener(Listener l) { this.listener = l; }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "simulation-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stop the loop thread and wait for it to exit.
+    public void stop() {
+        Thread t;
+        synchronized (this) { running = false; t = thread; thread = null; }
+        if (t == null) return;
+        LockSupport.unpark(t);
+        try { t.join(1000); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+    }
+
+    // Run `command` on the loop thread before the next tick.
+    public void submit(Runnable command) {
+        commands.add(command);
+        Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    // Start a new game with `players` players (on the loop thread).
+    public void restart(int players) {
+        submit(() -> {
+            match.start(players);
+            started = true;
+            overReported = false;
+        });
+    }
+
+    // Limit snapshots to `v` (null for the whole world); the next snapshot follows it even while paused.
+    public void setView(View v) {
+        view = v;
+        submit(() -> { });
+    }
+
+    public void setPaused(boolean p) { paused = p; Thread t = thread; if (t != null) LockSupport.unpark(t); }
+    public boolean isPaused() { return paused; }
+    public void setSpeed(int ticksPerFrame) { speed = Math.max(0, ticksPerFrame); }
+    public int getSpeed() { return speed; }
+    // total ticks run since the loop started
+    public long ticksRun() { return ticksRun; }
+
+    /**
+     * Most recent published snapshot. Only one thread (the EDT) may call
+     * this; the returned object stays valid until its next call.
+     */
+    public FrameSnapshot latest() {
+        if ((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & 3;
+        return buffers[front];
+    }
+
+    private void run() {
+        long last = System.nanoTime(), acc = 0;
+        boolean dirty = true;
+        while (running) {
+            Runnable c;
+            while ((c = commands.poll()) != null) {
+                try { c.run(); } catch (RuntimeException ex) { ex.printStackTrace(); }
+                dirty = true;
+            }
+            if (paused || !started || match.isOver()) {
+                if (dirty) { publish(); dirty = false; }
+                reportGameOver();
+                LockSupport.parkNanos(this, TICK_NANOS);
+                last = System.nanoTime();
+                acc = 0;
+                continue;
+            }
+            try {
+                int n = speed;
+                if (n == 0) {
+                    // as fast as possible, publishing once per frame
+                    long end = System.nanoTime() + FRAME_MS * 1_000_000L;
+                    do { match.tick(); ticksRun++; } while (!match.isOver() && commands.isEmpty() && System.nanoTime() < end);
+                    publish();
+                } else {
+                    long now = System.nanoTime();
+                    acc += now - last;
+                    last = now;
+                    long due = acc / TICK_NANOS;
+                    if (due > MAX_CATCH_UP) { due = MAX_CATCH_UP; acc = 0; }
+                    else acc -= due * TICK_NANOS;
+                    for (long k = due * n; k > 0 && !match.isOver(); k--) { match.tick(); ticksRun++; }
+                    if (due > 0) publish();
+                    if (!match.isOver()) LockSupport.parkNanos(this, TICK_NANOS - acc);
+                }
+            } catch (RuntimeException ex) {
+                // keep the UI alive; the game stays paused on the failing state
+                ex.printStackTrace();
+                paused = true;
+            }
+            reportGameOver();
+        }
+    }
+
+    private void reportGameOver() {
+        if (!started || overReported || !match.isOver()) return;
+        overReported = true;
+        publish();
+        Listener l = listener;
+        if (l != null) {
+            try { l.gameOver(match); } catch (RuntimeException ex) { ex.printStackTrace(); }
+        }
+    }
+
+    // Copy the current state into the back buffer and publish it.
+    private void publish() {
+        FrameSnapshot s = buffers[back];
+        Simulator sim = match.sim;
+        PlayerStore ps = sim.players;
+        int n = ps.countAlive();
+        int[] alive = ps.aliveIds();
+        View v = view;
+        if (v == null) {
+            s.ensureCapacity(n);
+            for (int k = 0; k < n; k++) copyPlayer(s, k, alive[k], ps);
+            s.shown = n;
+            s.dense = false;
+            s.viewX0 = 0; s.viewY0 = 0; s.viewX1 = sim.canvasW; s.viewY1 = sim.canvasH;
+        } else {
+            publishView(s, v, ps, alive, n);
+        }
+        s.aliveCount = n;
+        s.playerCount = ps.size();
+        s.seq = ++seq;
+        s.tick = sim.tick;
+        s.round = sim.round;
+        s.maxRounds = sim.maxRounds;
+        s.countdownSeconds = match.getCountdownSeconds();
+        s.finished = match.isOver();
+        s.winnerLeftId = sim.winnerLeftId;
+        s.hasZone = sim.adaptiveLeft != null;
+        s.zoneX = s.hasZone ? sim.adaptiveLeft.x : Double.NaN;
+        s.zoneY = s.hasZone ? sim.adaptiveLeft.y : Double.NaN;
+        s.zoneRadius = sim.roundRadii[Math.min(sim.round, sim.roundRadii.length - 1)];
+        s.insideCount = s.hasZone ? sim.membership.inside : 0;
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    private static void copyPlayer(FrameSnapshot s, int k, int i, PlayerStore ps) {
+        s.ids[k] = i;
+        s.x[k] = ps.x[i];
+        s.y[k] = ps.y[i];
+        s.kills[k] = ps.kills[i];
+        s.distance[k] = ps.distance[i];
+        s.activity[k] = ps.activity[i];
+    }
+
+    /**
+     * Copy the players in view (with margin), or, once there are more than
+     * the view allows, count the alive players per tile instead.
+     */
+    private static void publishView(FrameSnapshot s, View v, PlayerStore ps, int[] alive, int n) {
+        s.viewX0 = v.x0; s.viewY0 = v.y0; s.viewX1 = v.x1; s.viewY1 = v.y1;
+        double mx0 = v.x0 - v.margin, my0 = v.y0 - v.margin, mx1 = v.x1 + v.margin, my1 = v.y1 + v.margin;
+        final double[] px = ps.x, py = ps.y;
+        s.ensureCapacity(Math.min(n, v.maxPlayers));
+        int shown = 0;
+        boolean dense = false;
+        for (int k = 0; k < n; k++) {
+            int i = alive[k];
+            double x = px[i], y = py[i];
+            if (x < mx0 || x > mx1 || y < my0 || y > my1) continue;
+            if (shown == v.maxPlayers) { dense = true; break; }
+            copyPlayer(s, shown++, i, ps);
+        }
+        s.dense = dense;
+        if (!dense) { s.shown = shown; return; }
+        s.shown = 0;
+        int cols = v.tileCols, rows = v.tileRows;
+        s.tileCols = cols; s.tileRows = rows;
+        s.ensureTiles(cols * rows);
+        int[] d = s.density;
+        Arrays.fill(d, 0, cols * rows, 0);
+        double sx = cols / (v.x1 - v.x0), sy = rows / (v.y1 - v.y0);
+        for (int k = 0; k < n; k++) {
+            int i = alive[k];
+            double x = px[i], y = py[i];
+            if (x < v.x0 || x >= v.x1 || y < v.y0 || y >= v.y1) continue;
+            int tx = Math.min(cols - 1, (int) ((x - v.x0) * sx));
+            int ty = Math.min(rows - 1, (int) ((y - v.y0) * sy));
+            d[ty * cols + tx]++;
+        }
+    }
+}
@@ -1,30 +1,199 @@
 package bluezone.contoller;
 
-import bluezone.model.Player;
+import bluezone.model.PlayerStore;
 import bluezone.model.Zone;
+import bluezone.util.FenwickTree;
+import bluezone.util.ForkableRandom;
+import bluezone.util.PhiloxRandom;
+import bluezone.util.Heatmap;
+import bluezone.util.ReplayWriter;
+import bluezone.util.SimulationStats;
+import bluezone.util.SpatialGrid;
+import bluezone.util.SplitMixStream;
 
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class Simulator {
     public final int canvasW, canvasH;
-    public final List<Player> players = new ArrayList<>();
-    private final Random rng = new Random();
+    public final PlayerStore players = new PlayerStore();
+    private final ForkableRandom rng;
+    // seed of the current game: `new Simulator(w, h, seed, config)` started with the same players replays it
+    public long seed;
+    // whether a game was started, so the next reset derives a fresh seed
+    private boolean started = false;
+    // what a draw is for, the last part of its address under a counter-based generator (see PhiloxRandom)
+    static final int SPAWN = 1, MOVE = 2, SHUFFLE = 3, DUEL = 4, ZONE = 5, ROUND_ELIM = 6, FINAL_ELIM = 7;
+    // address part that does not apply
+    static final int NONE = -1;
+    // tuning knobs of this game; everything below that has a default comes from here
+    public final SimulationConfig config;
     public int round = 0;
-    public int maxRounds = 6;
-    // minimum rounds that must be played before a winner can be declared
-    public static final int MIN_ROUNDS = 3;
+    public int maxRounds;
     // when true, candidateAdaptive() will return a random zone rather than sampling players
     public boolean randomMode = false;
-    public final double[] roundRadii = new double[]{280, 240, 200, 160, 140, 100, 80};
-    public final Map<Player, Long> outsideSince = new HashMap<>();
+    public final double[] roundRadii;
+    // simulation clock: one tick per stepAnimation() call, TICK_MS of simulated time each
+    public static final int TICK_MS = 30;
+    public long tick = 0;
+    // tick at which each player (by id) went far outside the zone, or -1 while not outside
+    public int[] outsideSince = new int[0];
 
     public Zone adaptiveLeft;
     public int winnerLeftId = -1;
+    // players closer than this (pixels) may fight during an animation tick
+    public double combatRadius;
+    // when true, combat uses the spatial hash broadphase; false keeps the O(n^2) pair scan
+    public boolean spatialCombat = true;
+    // below this many alive players the pair scan is cheaper than building the grid (same duels either way)
+    public int gridCombatMinAlive = 128;
+    // whether the Vector API kernels can run in this JVM; -Dbluezone.simd=false turns them off
+    public static final boolean SIMD_AVAILABLE = simdAvailable();
+    // when true, clamping and zone classification use SimdKernels; false keeps the scalar path (same results)
+    public boolean simd = SIMD_AVAILABLE;
+    // below this many alive players the scalar path is used (config.simdMinAlive; same results either way)
+    public int simdMinAlive;
+
+    // pool used for the movement phase; null keeps movement on the calling thread
+    public ForkJoinPool movementPool = ForkJoinPool.commonPool();
+    // below this many alive players movement always runs on the calling thread (config.parallelMovementThreshold)
+    public int parallelMovementThreshold;
+    private final MovementPhase movement = new MovementPhase(this);
+    // when set, every tick is appended to this replay; dropped after the first write error
+    public ReplayWriter replay;
+    // when set, every game, tick, death and zone centre is added to this heatmap (games add up)
+    public Heatmap heatmap;
+    // who is inside / near / outside the current zone, refreshed every tick and round
+    public final ZoneMembership membership = new ZoneMembership();
+    // running kill and activity totals of the current game, read by SimulationStats
+    public final SimulationStats.Tally tally = new SimulationStats.Tally();
+    // phase timings and event counters of the current game (see SimulatorMetrics.ENABLED)
+    public final SimulatorMetrics metrics = new SimulatorMetrics();
+
+    // adaptive zone weight of every player (0 once dead), kept current on kills and deaths
+    private final FenwickTree zoneWeights = new FenwickTree();
+
+    // scratch buffers, reused across ticks
+    private int[] aliveScratch = new int[0];
+    private SpatialGrid combatGrid;
+    private int[] combatRank = new int[0];
+    // per neighbouring cell (at most 9): next and end position in the grid, for merging their rank runs
+    private final int[] runNext = new int[9], runEnd = new int[9];
 
     // Construct a Simulator with the given canvas dimensions.
      
     public Simulator(int w, int h)
-    { this.canvasW = w; this.canvasH = h; }
+    { this(w, h, new Random().nextLong()); }
+
+    // Construct a Simulator whose random stream is fully determined by `seed`.
+    public Simulator(int w, int h, long seed)
+    { this(w, h, seed, SimulationConfig.DEFAULT); }
+
+    // Construct a seeded Simulator playing with the knobs in `config`.
+    public Simulator(int w, int h, long seed, SimulationConfig config) {
+        this.canvasW = w; this.canvasH = h;
+        this.rng = config.counterRng ? new PhiloxRandom(seed) : new ForkableRandom(seed);
+        this.seed = seed;
+        this.config = config;
+        this.roundRadii = config.roundRadii();
+        this.maxRounds = config.maxRounds;
+        this.combatRadius = config.combatRadius;
+        this.parallelMovementThreshold = config.parallelMovementThreshold;
+        this.simdMinAlive = config.simdMinAlive;
+    }
+
+    /**
+     * Restart the random stream from `seed`. Forks of one SimState are
+     * reseeded so that each plays out a different future.
+     */
+    public void reseed(long seed) { rng.setSeed(seed); this.seed = seed; }
+
+    // Bytes `writeState` needs for the current game.
+    int stateBytes() {
+        int n = players.size();
+        return 128 + n * (8 * 4 + 4 * 4) + ((n + 63) >>> 6) * 8 + players.countAlive() * 4 + 4 + n * 16;
+    }
+
+    /**
+     * Append everything the game depends on to `b`: random state, clock,
+     * round, zone, winner, tally, every player column, the alive order
+     * (sampling and combat walk it, so it must survive exactly), the
+     * outside timers and the adaptive zone weights. Membership is derived
+     * and recomputed on restore; metrics and the replay are not game state.
+     */
+    void writeState(ByteBuffer b) {
+        final PlayerStore ps = players;
+        final int n = ps.size();
+        b.putLong(rng.getState());
+        b.putLong(seed);
+        b.putLong(tick);
+        b.putInt(round).putInt(maxRounds);
+        b.put((byte) (randomMode ? 1 : 0));
+        b.put((byte) (adaptiveLeft != null ? 1 : 0));
+        b.putDouble(adaptiveLeft != null ? adaptiveLeft.x : 0).putDouble(adaptiveLeft != null ? adaptiveLeft.y : 0);
+        b.putInt(winnerLeftId);
+        b.putDouble(combatRadius);
+        b.putInt(tally.players).putLong(tally.killSum).putLong(tally.killSquares).putDouble(tally.activitySum);
+        b.putInt(n);
+        b.asDoubleBuffer().put(ps.x, 0, n).put(ps.y, 0, n).put(ps.targetX, 0, n).put(ps.targetY, 0, n);
+        b.position(b.position() + 32 * n);
+        b.asIntBuffer().put(ps.kills, 0, n).put(ps.distance, 0, n).put(outsideSince, 0, n);
+        b.position(b.position() + 12 * n);
+        b.asFloatBuffer().put(ps.activity, 0, n);
+        b.position(b.position() + 4 * n);
+        for (int w = 0; w < n; w += 64) {
+            long bits = 0;
+            for (int i = w, end = Math.min(n, w + 64); i < end; i++) if (ps.hasTarget(i)) bits |= 1L << i;
+            b.putLong(bits);
+        }
+        int alive = ps.countAlive();
+        b.putInt(alive);
+        b.asIntBuffer().put(ps.aliveIds(), 0, alive);
+        b.position(b.position() + 4 * alive);
+        zoneWeights.write(b);
+    }
+
+    // Replace the current game with one saved by `writeState`, reusing this simulator's arrays.
+    void readState(ByteBuffer b) {
+        final PlayerStore ps = players;
+        rng.setState(b.getLong());
+        seed = b.getLong();
+        started = true;
+        tick = b.getLong();
+        round = b.getInt();
+        maxRounds = b.getInt();
+        randomMode = b.get() != 0;
+        boolean hasZone = b.get() != 0;
+        double zx = b.getDouble(), zy = b.getDouble();
+        if (!hasZone) adaptiveLeft = null;
+        else if (adaptiveLeft == null) adaptiveLeft = new Zone(zx, zy);
+        else { adaptiveLeft.x = zx; adaptiveLeft.y = zy; }
+        winnerLeftId = b.getInt();
+        combatRadius = b.getDouble();
+        tally.players = b.getInt();
+        tally.killSum = b.getLong();
+        tally.killSquares = b.getLong();
+        tally.activitySum = b.getDouble();
+        final int n = b.getInt();
+        ps.reset(n);
+        if (outsideSince.length < n) outsideSince = new int[n];
+        b.asDoubleBuffer().get(ps.x, 0, n).get(ps.y, 0, n).get(ps.targetX, 0, n).get(ps.targetY, 0, n);
+        b.position(b.position() + 32 * n);
+        b.asIntBuffer().get(ps.kills, 0, n).get(ps.distance, 0, n).get(outsideSince, 0, n);
+        b.position(b.position() + 12 * n);
+        b.asFloatBuffer().get(ps.activity, 0, n);
+        b.position(b.position() + 4 * n);
+        for (int w = 0; w < n; w += 64) {
+            long bits = b.getLong();
+            for (; bits != 0; bits &= bits - 1) ps.setHasTarget(w + Long.numberOfTrailingZeros(bits), true);
+        }
+        // re-adding in the saved order reproduces the alive index exactly
+        int alive = b.getInt();
+        for (int k = 0; k < alive; k++) ps.setAlive(b.getInt(), true);
+        zoneWeights.read(b);
+        updateMembership();
+    }
 
     // Return a uniform random double in the interval [a, b).
     public double rand(double a, double b)
@@ -32,36 +201,95 @@ public class Simulator {
 
     // Reset the simulator state and spawn `count` players with randomized
     // positions and stats. Resets the round counter and sets the initial
-    // adaptive zone according to `randomMode`.
+    // adaptive zone according to `randomMode`. The first game plays from
+    // the simulator's seed; every later one reseeds from a seed derived
+    // from the previous game's, so each game can be replayed from `seed`.
     public void reset(int count){
-        players.clear();
+        // the previous game's metrics go to the process-wide totals
+        if (SimulatorMetrics.ENABLED) metrics.flushToGlobal();
+        if (started) reseed(SplitMixStream.mix(seed ^ 0x9E3779B97F4A7C15L));
+        started = true;
+        players.reset(count);
+        tally.start(count);
+        if (heatmap != null) heatmap.games++;
         int leftMaxX = canvasW - 20;
         for(int i=0;i<count;i++){
-            Player p = new Player();
-            p.id = i;
-            p.x = rand(20, leftMaxX);
-            p.y = rand(20, canvasH-20);
-            p.kills = rng.nextInt(10);
-            p.distance = rng.nextInt(1000);
-            p.activity = rng.nextDouble();
-            p.alive = true;
-            players.add(p);
+            rng.at(0, i, NONE, SPAWN);
+            players.x[i] = rand(20, leftMaxX);
+            players.y[i] = rand(20, canvasH-20);
+            players.kills[i] = rng.nextInt(10);
+            players.distance[i] = rng.nextInt(1000);
+            players.activity[i] = (float) rng.nextDouble();
+            players.setAlive(i, true);
+            tally.spawn(players.kills[i], players.activity[i]);
         }
+        zoneWeights.reset(count);
+        for (int i = 0; i < count; i++) zoneWeights.setRaw(i, adaptiveWeight(i));
+        zoneWeights.rebuild();
+        if (outsideSince.length < count) outsideSince = new int[count];
+        Arrays.fill(outsideSince, -1);
+        tick = 0;
         round = 0;
-        if (randomMode) adaptiveLeft = candidateRandom(); 
-        else adaptiveLeft = new Zone(canvasW/2, canvasH/2);
+        if (adaptiveLeft == null) adaptiveLeft = new Zone(0, 0);
+        rng.at(0, NONE, NONE, ZONE);
+        if (randomMode) randomCentre(adaptiveLeft);
+        else { adaptiveLeft.x = canvasW/2; adaptiveLeft.y = canvasH/2; }
+        updateMembership();
+    }
+
+    /**
+     * Bring every dead player back at a fresh random spot, keeping its
+     * kills and activity, so a lobby stays at full size for as long as a
+     * load test needs (e.g. SteadyStateAllocationTest). Allocates
+     * nothing. Not part of a normal game.
+     */
+    public void respawnDead() {
+        final PlayerStore ps = players;
+        int leftMaxX = canvasW - 20;
+        for (int i = 0, n = ps.size(); i < n; i++) {
+            if (ps.isAlive(i)) continue;
+            rng.at(tick, i, NONE, SPAWN);
+            ps.x[i] = rand(20, leftMaxX);
+            ps.y[i] = rand(20, canvasH - 20);
+            ps.setHasTarget(i, false);
+            ps.setAlive(i, true);
+            outsideSince[i] = -1;
+            zoneWeights.set(i, adaptiveWeight(i));
+            switch (membership.classify(i, ps.x[i], ps.y[i])) {
+                case ZoneMembership.INSIDE: membership.addCounts(1, 0, 0); break;
+                case ZoneMembership.BUFFER: membership.addCounts(0, 1, 0); break;
+                default: membership.addCounts(0, 0, 1);
+            }
+        }
+    }
+
+    // Zone centre used for membership; the canvas centre before any zone exists.
+    double zoneCentreX() { return adaptiveLeft != null ? adaptiveLeft.x : canvasW / 2.0; }
+    double zoneCentreY() { return adaptiveLeft != null ? adaptiveLeft.y : canvasH / 2.0; }
+
+    // Reclassify every alive player against the current zone and radius.
+    private void updateMembership() {
+        membership.computeAll(players, zoneCentreX(), zoneCentreY(), roundRadii[Math.min(round, roundRadii.length - 1)], config.approachBuffer, useSimd());
+    }
+
+    boolean useSimd() { return simd && players.countAlive() >= simdMinAlive; }
+
+    // The kernels need jdk.incubator.vector at run time and at least four double lanes to pay off (two measured slower than scalar).
+    private static boolean simdAvailable() {
+        if ("false".equalsIgnoreCase(System.getProperty("bluezone.simd"))) return false;
+        return SimdKernels.INSTANCE != null && SimdKernels.INSTANCE.lanes() >= 4;
     }
 
     /**
      * Check whether the simulation has finished.
      * Returns true if either the round limit was reached or at most one
-     * player is alive, and at least MIN_ROUNDS have been played.
+     * player is alive, and at least config.minRounds have been played.
      */
     public boolean isFinished(){
-        long alive = players.stream().filter(p->p.alive).count();
-        // require at least MIN_ROUNDS to have been played before declaring finished
+        int alive = players.countAlive();
+        // require at least minRounds to have been played before declaring finished
         boolean basicFinished = (round >= maxRounds) || (alive <= 1);
-        return basicFinished && round >= MIN_ROUNDS;
+        return basicFinished && round >= config.minRounds;
     }
 
     /**
@@ -71,50 +299,44 @@ public class Simulator {
      */
     public void advanceRound(){
         if(round >= maxRounds) return;
-    Zone[] adapt = candidateAdaptive();
-    adaptiveLeft = adapt[0];
+        long t = SimulatorMetrics.ENABLED ? System.nanoTime() : 0L;
+        // the zone moves in place: a round allocates nothing
+        if (adaptiveLeft == null) adaptiveLeft = new Zone(0, 0);
+        selectZone(adaptiveLeft);
+        if (heatmap != null) heatmap.add(Heatmap.ZONES, adaptiveLeft.x, adaptiveLeft.y);
+        if (SimulatorMetrics.ENABLED) { metrics.rounds++; t = metrics.lap(SimulatorMetrics.ZONE_SELECTION, t); }
 
         round++;
-        outsideSince.clear();
+        Arrays.fill(outsideSince, -1);
+        // new centre and radius: everyone is reclassified; eliminations below keep the counts current
+        updateMembership();
         // Randomly eliminate a random number of alive players each advance.
-        List<Player> alive = new ArrayList<>();
-        for (Player p : players) if (p.alive) alive.add(p);
-        int aliveCount = alive.size();
+        int aliveCount = players.countAlive();
         if (aliveCount > 1) {
             // scale max eliminations with number of alive players:
             // - more players => more elimination
-            // - at most half of alive players
-            // - absolute cap at 8
-            int scaledMax = Math.min(8, Math.max(1, aliveCount / 2));
+            // - at most roundElimFraction (half) of alive players
+            // - absolute cap at roundElimCap (8)
+            int scaledMax = Math.min(config.roundElimCap, Math.max(1, (int) (aliveCount * config.roundElimFraction)));
             int maxElim = Math.min(aliveCount - 1, scaledMax); // ensure we never eliminate all here
+            rng.at(tick, NONE, round, ROUND_ELIM);
             int elimCount = 1 + rng.nextInt(maxElim); // 1..maxElim
-            // shuffle and eliminate first elimCount players
-            Collections.shuffle(alive, rng);
-            for (int i = 0; i < elimCount; i++) {
-                Player eliminated = alive.get(i);
-                eliminated.alive = false;
-            }
+            eliminateRandom(elimCount);
         }
+        if (SimulatorMetrics.ENABLED) t = System.nanoTime();
 
         // If max rounds reached or only 0/1 players remain, determine the final winner
-        long aliveNow = players.stream().filter(p -> p.alive).count();
-
-        // compute inside count using currentRadius
-        double currentRadius = roundRadii[Math.min(round, roundRadii.length - 1)];
-        int inLeft = 0;
-        for (Player p : players) {
-            if (!p.alive) continue;
-            double dLeft = Math.hypot(p.x - adaptiveLeft.x, p.y - adaptiveLeft.y);
-            if (dLeft <= currentRadius) inLeft++;
-        }
+        int aliveNow = players.countAlive();
+
+        int inLeft = membership.inside;
+        final int[] aliveIds = players.aliveIds();
 
         // If a zone has exactly one alive player inside and we haven't recorded a winner for that zone yet,
         // register that player as the zone winner. This allows a zone to have a winner before the other zone.
         if (inLeft == 1 && winnerLeftId == -1) {
-            for (Player p : players) {
-                if (!p.alive) continue;
-                double d = Math.hypot(p.x - adaptiveLeft.x, p.y - adaptiveLeft.y);
-                if (d <= currentRadius) { winnerLeftId = p.id; break; }
+            for (int k = 0; k < aliveNow; k++) {
+                int i = aliveIds[k];
+                if (membership.isInside(i)) { winnerLeftId = i; break; }
             }
         }
         // no right zone anymore
@@ -123,189 +345,260 @@ public class Simulator {
         if (round >= maxRounds || aliveNow <= 1) {
             checkFinalWinner();
         }
+        if (SimulatorMetrics.ENABLED) metrics.lap(SimulatorMetrics.WINNER_CHECK, t);
     }
 
     /**
      * Perform a single animation tick: move alive players toward or around
      * the adaptive zone, resolve local combat encounters, and eliminate
-     * players who remain far outside the zone for too long.
-     * Side-effects: updates player positions, targets, kills, alive flags,
-     * and the `outsideSince` timers.
+     * players who remain far outside the zone for too long. Movement may
+     * run on `movementPool`; combat and the outside check then run in order
+     * on the calling thread.
+     * Side-effects: advances `tick`, updates player positions, targets,
+     * kills, alive flags, and the `outsideSince` timers.
      */
     public void stepAnimation(){
-        // Movement: players should slowly steer toward the current adaptive zone.
-        // Players have a low approach speed; we keep a little random jitter so movement
-        // doesn't look perfectly uniform.
-        double approachBase = 0.2; // base approach speed (pixels per tick)
-        double approachJitter = 0.25; // extra random jitter applied to movement
-        double approachBuffer = 60.0; // grace distance beyond the radius where players are allowed to approach
+        tick++;
+        long t = SimulatorMetrics.ENABLED ? System.nanoTime() : 0L;
+        // Movement: every alive player moves from its own random stream (see MovementPhase),
+        // possibly in parallel; the outcome is identical for any thread count.
         double currentRadius = roundRadii[Math.min(round, roundRadii.length-1)];
+        rng.at(tick, NONE, NONE, MOVE);
+        movement.run(rng.nextLong(), currentRadius);
+        if (SimulatorMetrics.ENABLED) t = metrics.lap(SimulatorMetrics.MOVEMENT, t);
 
-        for(Player p : players){
-            if(!p.alive) continue;
-            // decide per-player whether they actively approach the zone this tick or just roam
-            double approachChance = 0.45 + (p.activity - 0.5) * 0.4; // lower base so fewer always approach
-            approachChance = Math.max(0.05, Math.min(0.9, approachChance));
-            boolean willApproach = rng.nextDouble() < approachChance;
-
-            if (adaptiveLeft != null && willApproach) {
-                // ensure player has a distinct interior target inside the zone (not the exact center)
-                if (!p.hasTarget) {
-                    double targetRadius = Math.max(10, currentRadius * 0.55);
-                    double angle = rng.nextDouble() * Math.PI * 2;
-                    double r = rng.nextDouble() * targetRadius;
-                    p.targetX = clamp(adaptiveLeft.x + Math.cos(angle) * r, 12, canvasW - 12);
-                    p.targetY = clamp(adaptiveLeft.y + Math.sin(angle) * r, 12, canvasH - 12);
-                    p.hasTarget = true;
-                }
-                double dx = p.targetX - p.x;
-                double dy = p.targetY - p.y;
-                double dist = Math.hypot(dx, dy);
-                double speed = approachBase + p.activity * 0.4;
-                if (dist > 1e-6) {
-                    double vx = dx / dist * speed;
-                    double vy = dy / dist * speed;
-                    vx += rand(-1, 1) * approachJitter * 0.5;
-                    vy += rand(-1, 1) * approachJitter * 0.5;
-                    p.x += vx; p.y += vy;
-                }
-                // if reached target, occasionally pick a new one (so players move around inside)
-                if (dist <= speed * 1.5 || rng.nextDouble() < 0.02) {
-                    p.hasTarget = false;
-                }
-            } else {
-                // roaming behavior: pick a short-range wandering target or sometimes dash elsewhere
-                if (!p.hasTarget || rng.nextDouble() < 0.01) {
-                    if (rng.nextDouble() < 0.2) {
-                        // occasional dash to a random map point
-                        p.targetX = rand(20, canvasW - 20);
-                        p.targetY = rand(20, canvasH - 20);
-                    } else {
-                        // local wander target
-                        p.targetX = clamp(p.x + rand(-80, 80), 12, canvasW - 12);
-                        p.targetY = clamp(p.y + rand(-80, 80), 12, canvasH - 12);
-                    }
-                    p.hasTarget = true;
-                }
-                double dx = p.targetX - p.x;
-                double dy = p.targetY - p.y;
-                double dist = Math.hypot(dx, dy);
-                double speed = 0.4 + p.activity * 1.2;
-                if (dist > 1e-6) {
-                    double vx = dx / dist * speed;
-                    double vy = dy / dist * speed;
-                    vx += rand(-1, 1) * approachJitter;
-                    vy += rand(-1, 1) * approachJitter;
-                    p.x += vx; p.y += vy;
-                }
-                if (dist <= speed * 1.5) p.hasTarget = false;
-            }
-            p.x = clamp(p.x, 12, canvasW - 12);
-            p.y = clamp(p.y, 12, canvasH - 12);
-        }
+        final PlayerStore ps = players;
+        final int[] aliveIds = ps.aliveIds();
         // Simple combat: players close to each other may fight and one dies.
         // This simulates player vs player eliminations during the animation ticks.
-        double combatRadius = 12.0; // pixels
-        List<Player> aliveList = new ArrayList<>();
-        for (Player p : players) if (p.alive) aliveList.add(p);
+        int aliveCount = ps.countAlive();
+        if (aliveScratch.length < aliveCount) aliveScratch = new int[ps.size()];
+        System.arraycopy(aliveIds, 0, aliveScratch, 0, aliveCount);
         // shuffle order so fights are randomized
-        Collections.shuffle(aliveList, rng);
-        for (int i = 0; i < aliveList.size(); i++) {
-            Player a = aliveList.get(i);
-            if (!a.alive) continue; // might have been killed earlier this tick
-            for (int j = i+1; j < aliveList.size(); j++) {
-                Player b = aliveList.get(j);
-                if (!b.alive) continue;
-                double dx = a.x - b.x;
-                double dy = a.y - b.y;
-                double d = Math.hypot(dx, dy);
-                if (d <= combatRadius) {
-                    // resolve duel uniformly at random (50/50)
-                    if (rng.nextBoolean()) {
-                        // a wins
-                        b.alive = false;
-                        a.kills += 1;
-                    } else {
-                        // b wins
-                        a.alive = false;
-                        b.kills += 1;
-                        break; // a is dead, stop checking further opponents for a
-                    }
-                }
-            }
-        }
+        rng.at(tick, NONE, NONE, SHUFFLE);
+        shuffle(aliveScratch, aliveCount);
+        if (spatialCombat && aliveCount >= gridCombatMinAlive) resolveCombatGrid(aliveScratch, aliveCount);
+        else resolveCombatBruteForce(aliveScratch, aliveCount);
+        if (SimulatorMetrics.ENABLED) t = metrics.lap(SimulatorMetrics.COMBAT, t);
         // Outside-of-zone handling: if a player remains sufficiently far outside the current zone for >= 10 seconds, eliminate them.
         // Players that are just outside the radius but within `approachBuffer` are allowed to approach and won't be eliminated.
-        long now = System.currentTimeMillis();
-        for (Player p : players) {
-            if (!p.alive) continue;
-            double dx = p.x - adaptiveLeft.x;
-            double dy = p.y - adaptiveLeft.y;
-            double d = Math.hypot(dx, dy);
-            if (d > currentRadius + approachBuffer) {
+        // Membership was classified during movement (combat moves nobody), so this only reads it.
+        final int now = (int) tick;
+        final int[] since = outsideSince;
+        final byte[] cls = membership.cls;
+        // walk the alive index backwards: a kill swap-removes an already visited id into the current slot
+        for (int k = ps.countAlive() - 1; k >= 0; k--) {
+            final int i = aliveIds[k];
+            if (cls[i] == ZoneMembership.OUTSIDE) {
                 // clearly far outside -> start/continue outside timer
-                outsideSince.putIfAbsent(p, now);
-                long since = now - outsideSince.get(p);
-                if (since >= 10000) { // 10 seconds outside
-                    p.alive = false;
-                    outsideSince.remove(p);
+                if (since[i] < 0) since[i] = now;
+                if (now - since[i] >= config.outsideLimitTicks) { // 10 seconds outside by default
+                    killPlayer(i);
+                    since[i] = -1;
+                    if (SimulatorMetrics.ENABLED) metrics.outsideKills++;
                 }
-            } else if (d > currentRadius) {
-                // within the approach buffer: allow approaching players to enter, do not count against outside timer
-                outsideSince.remove(p);
             } else {
-                // inside -> reset timer
-                outsideSince.remove(p);
+                // inside, or within the approach buffer where approaching players may still enter -> reset timer
+                since[i] = -1;
             }
         }
+        if (SimulatorMetrics.ENABLED) { metrics.ticks++; metrics.lap(SimulatorMetrics.OUTSIDE, t); }
+        if (heatmap != null) heatmap.tick(ps);
+        if (replay != null) recordFrame();
+    }
+
+    private void recordFrame() {
+        try {
+            replay.writeFrame(this);
+        } catch (java.io.IOException ex) {
+            System.err.println("Replay recording stopped: " + ex.getMessage());
+            try { replay.close(); } catch (java.io.IOException ignored) { }
+            replay = null;
+        }
     }
     
+    /**
+     * Reference combat pass: every alive player is compared against every
+     * later player in the shuffled order. Kept for verification of the grid
+     * path; cost is O(n^2) per tick.
+     */
+    private void resolveCombatBruteForce(int[] order, int n) {
+        final PlayerStore ps = players;
+        double r2 = combatRadius * combatRadius;
+        for (int i = 0; i < n; i++) {
+            int a = order[i];
+            if (!ps.isAlive(a)) continue; // might have been killed earlier this tick
+            for (int j = i+1; j < n; j++) {
+                int b = order[j];
+                if (!ps.isAlive(b)) continue;
+                double dx = ps.x[a] - ps.x[b];
+                double dy = ps.y[a] - ps.y[b];
+                if (dx*dx + dy*dy <= r2) {
+                    if (duel(a, b)) break; // a is dead, stop checking further opponents for a
+                }
+            }
+        }
+    }
+
+    /**
+     * Grid combat pass. Players are bucketed into cells of `combatRadius`
+     * so only the 3x3 neighbourhood around each player is examined. For
+     * each player the neighbours that come later in the shuffled order are
+     * visited in that order, which reproduces the duels (and random draws)
+     * of the brute-force scan exactly. The grid is built from the shuffled
+     * order with a stable counting sort, so every cell lists its players
+     * by ascending rank; visiting in order is a merge of at most nine
+     * sorted runs, which needs neither a sort nor a candidate buffer.
+     */
+    private void resolveCombatGrid(int[] order, int n) {
+        final PlayerStore ps = players;
+        if (combatGrid == null || combatGrid.cellSize != combatRadius) {
+            combatGrid = new SpatialGrid(canvasW, canvasH, combatRadius);
+        }
+        if (combatRank.length < ps.size()) combatRank = new int[ps.size()];
+        for (int i = 0; i < n; i++) combatRank[order[i]] = i;
+        combatGrid.build(n, order, ps.x, ps.y);
+
+        final int[] rank = combatRank, next = runNext, end = runEnd;
+        double r2 = combatRadius * combatRadius;
+        for (int i = 0; i < n; i++) {
+            int a = order[i];
+            if (!ps.isAlive(a)) continue;
+            double ax = ps.x[a], ay = ps.y[a];
+            int cx = combatGrid.cellX(ax), cy = combatGrid.cellY(ay);
+            int runs = 0;
+            for (int gy = Math.max(0, cy - 1); gy <= Math.min(combatGrid.rows - 1, cy + 1); gy++) {
+                for (int gx = Math.max(0, cx - 1); gx <= Math.min(combatGrid.cols - 1, cx + 1); gx++) {
+                    int cell = combatGrid.cellIndex(gx, gy);
+                    int k = combatGrid.cellStart(cell), e = combatGrid.cellEnd(cell);
+                    // players up to and including `a` in the order come first in the cell; skip them
+                    while (k < e && rank[combatGrid.item(k)] <= i) k++;
+                    if (k < e) { next[runs] = k; end[runs] = e; runs++; }
+                }
+            }
+            while (runs > 0) {
+                // the run whose next player comes first in the shuffled order
+                int best = 0, bestRank = rank[combatGrid.item(next[0])];
+                for (int r = 1; r < runs; r++) {
+                    int rr = rank[combatGrid.item(next[r])];
+                    if (rr < bestRank) { best = r; bestRank = rr; }
+                }
+                if (++next[best] == end[best]) { runs--; next[best] = next[runs]; end[best] = end[runs]; }
+                int b = order[bestRank];
+                if (!ps.isAlive(b)) continue;
+                double dx = ax - ps.x[b];
+                double dy = ay - ps.y[b];
+                if (dx*dx + dy*dy <= r2) {
+                    if (duel(a, b)) break;
+                }
+            }
+        }
+    }
+
+    // Resolve a duel uniformly at random (50/50). Returns true when `a` died.
+    private boolean duel(int a, int b) {
+        if (SimulatorMetrics.ENABLED) metrics.combatKills++;
+        rng.at(tick, a, b, DUEL);
+        if (rng.nextBoolean()) {
+            // a wins
+            if (heatmap != null) heatmap.add(Heatmap.KILLS, players.x[b], players.y[b]);
+            killPlayer(b);
+            creditKill(a);
+            return false;
+        }
+        // b wins
+        if (heatmap != null) heatmap.add(Heatmap.KILLS, players.x[a], players.y[a]);
+        killPlayer(a);
+        creditKill(b);
+        return true;
+    }
+
+    // The single point where a player dies.
+    private void killPlayer(int i) {
+        if (heatmap != null) heatmap.add(Heatmap.DEATHS, players.x[i], players.y[i]);
+        players.setAlive(i, false);
+        membership.remove(i);
+        zoneWeights.set(i, 0);
+    }
+
+    // Award a kill to `i`, keeping its adaptive zone weight in sync.
+    private void creditKill(int i) {
+        tally.kill(players.kills[i]);
+        players.kills[i] += 1;
+        zoneWeights.set(i, adaptiveWeight(i));
+    }
+
+    // Weight used when sampling the adaptive zone centre around players.
+    public double adaptiveWeight(int i) {
+        return config.weightBase + players.kills[i]*config.weightKills + players.activity[i]*config.weightActivity;
+    }
+
+    // Eliminate `count` distinct alive players chosen uniformly at random. O(count).
+    private void eliminateRandom(int count) {
+        for (int i = 0; i < count && players.countAlive() > 0; i++) {
+            killPlayer(players.aliveId(rng.nextInt(players.countAlive())));
+            if (SimulatorMetrics.ENABLED) metrics.roundEliminations++;
+        }
+    }
+
+    // Fisher-Yates shuffle of the first `n` entries; same draw sequence as Collections.shuffle.
+    private void shuffle(int[] a, int n) {
+        for (int i = n; i > 1; i--) {
+            int j = rng.nextInt(i);
+            int t = a[i - 1]; a[i - 1] = a[j]; a[j] = t;
+        }
+    }
+
      // Choose adaptive zone(s) for the current round.
      // If `randomMode` is enabled, returns a random zone. Otherwise samples
      // among alive players using a weight computed from kills and activity,
      
-    private Zone[] candidateAdaptive(){
-        // if randomMode is enabled, always pick a random zone instead of sampling players
-        if (randomMode) {
-            return new Zone[]{ candidateRandom() };
-        } 
-
-        List<Player> alive = new ArrayList<>();
-        for(Player p : players) if(p.alive) alive.add(p);
-        if(alive.isEmpty()){
-            return new Zone[]{ new Zone(canvasW/2, canvasH/2) };
-        }
-        double[] weights = new double[alive.size()];
-        double sum = 0;
-        for(int i=0;i<alive.size();i++){
-            Player p = alive.get(i);
-            weights[i] = 1 + p.kills*0.8 + p.activity*2;
-            sum += weights[i];
-        }
-        Zone left = sampleWeighted(alive, weights, sum, true);
+    public Zone[] candidateAdaptive(){
+        Zone left = new Zone(0, 0);
+        selectZone(left);
         return new Zone[]{left};
     }
 
     /**
-     * Sample a player from `alive` using `weights` (sum provided) and
-     * return a `Zone` placed near the sampled player's position with
-     * bounded jitter. `useLeft` is reserved for potential multi-zone logic.
+     * Move `z` to a new adaptive zone centre: a random one in `randomMode`,
+     * the canvas centre when nobody is alive, otherwise one sampled around
+     * the players. Same draws as `candidateAdaptive()`, without allocating.
+     */
+    private void selectZone(Zone z){
+        rng.at(tick, NONE, round, ZONE);
+        // if randomMode is enabled, always pick a random zone instead of sampling players
+        if (randomMode) { randomCentre(z); return; }
+        if(players.countAlive() == 0){ z.x = canvasW/2; z.y = canvasH/2; return; }
+        sampleWeighted(z);
+    }
+
+    /**
+     * Sample an alive player with probability proportional to its
+     * adaptive weight (an O(log n) search of `zoneWeights`) and place `z`
+     * near the sampled player's position with bounded jitter.
      */
-    private Zone sampleWeighted(List<Player> alive, double[] weights, double sum, boolean useLeft){
-        double r = rng.nextDouble() * sum; int idx = 0;
-        while(r > 0 && idx < weights.length){ r -= weights[idx++]; }
-        Player p = alive.get(Math.max(0, idx-1));
-        double jitter = 60;
-        double x = clamp(p.x + rand(-jitter, jitter), 60, canvasW - 60);
-        double y = clamp(p.y + rand(-jitter, jitter), 60, canvasH - 60);
-        return new Zone(x,y);
+    private void sampleWeighted(Zone z){
+        int p = sampleWeightedPlayer();
+        double jitter = config.zoneJitter;
+        double x = clamp(players.x[p] + rand(-jitter, jitter), 60, canvasW - 60);
+        double y = clamp(players.y[p] + rand(-jitter, jitter), 60, canvasH - 60);
+        z.x = x; z.y = y;
     }
 
-    // Pick a random Zone within the allowed map margins.
-    private Zone candidateRandom(){
+    /**
+     * Draw an alive player with probability proportional to its adaptive
+     * weight, the way zone selection does. Someone must be alive.
+     */
+    public int sampleWeightedPlayer() {
+        // (1 - u) lies in (0, 1], so the target is always positive and dead (zero-weight) players are never picked
+        return zoneWeights.find((1 - rng.nextDouble()) * zoneWeights.total());
+    }
+
+    // Place `z` at a random point within the allowed map margins.
+    private void randomCentre(Zone z){
         double x = rand(60, canvasW - 60);
         double y = rand(60, canvasH - 60);
-        return new Zone(x,y);
+        z.x = x; z.y = y;
     }
 
     
@@ -322,16 +615,15 @@ public class Simulator {
      */
     private void checkFinalWinner(){
         // Ensure we end with at most one alive player before declaring winner.
-        long aliveNow = players.stream().filter(p -> p.alive).count();
+        int aliveNow = players.countAlive();
         if (aliveNow > 1) {
             eliminateUntilOneLeft();
-            aliveNow = players.stream().filter(p -> p.alive).count();
+            aliveNow = players.countAlive();
         }
 
         // If exactly one remains, that player is the winner for the adaptive zone.
         if (aliveNow == 1) {
-            Player w = null; for (Player p : players) if (p.alive) { w = p; break; }
-            winnerLeftId = w != null ? w.id : -1;
+            winnerLeftId = players.aliveId(0);
         } else {
             // fallback: pick a winner by heuristic
             winnerLeftId = findZoneWinner(true);
@@ -346,10 +638,13 @@ public class Simulator {
      */
     public void finishGame(){
         // ensure we respect the minimum rounds requirement
-        if(this.round < MIN_ROUNDS) this.round = MIN_ROUNDS;
+        if(this.round < config.minRounds) this.round = config.minRounds;
+        long t = SimulatorMetrics.ENABLED ? System.nanoTime() : 0L;
         checkFinalWinner();
+        if (SimulatorMetrics.ENABLED) metrics.lap(SimulatorMetrics.WINNER_CHECK, t);
         // mark as finished by advancing round to maxRounds
         this.round = this.maxRounds;
+        updateMembership();
     }
 
     // Repeatedly eliminate random alive players until at most one remains.
@@ -358,19 +653,13 @@ public class Simulator {
      * at most one remains. Mutates player `alive` flags.
      */
     private void eliminateUntilOneLeft(){
-        List<Player> aliveList = new ArrayList<>();
+        rng.at(tick, NONE, round, FINAL_ELIM);
         while(true){
-            aliveList.clear();
-            for(Player p : players) if(p.alive) aliveList.add(p);
-            int aliveCount = aliveList.size();
+            int aliveCount = players.countAlive();
             if(aliveCount <= 1) break;
-            int maxElim = Math.min(aliveCount - 1, 5);
+            int maxElim = Math.min(aliveCount - 1, config.finalElimCap);
             int elimCount = 1 + rng.nextInt(maxElim);
-            Collections.shuffle(aliveList, rng);
-            for(int i=0;i<elimCount && aliveList.size()>1;i++){
-                Player out = aliveList.get(i);
-                out.alive = false;
-            }
+            eliminateRandom(elimCount);
         }
     }
 
@@ -381,47 +670,46 @@ public class Simulator {
      * `tieBreak`. Falls back to best alive anywhere or best overall.
      */   
     private int findZoneWinner(boolean useLeft){
+        final PlayerStore ps = players;
+        final int n = ps.size();
         double bestScore = Double.NEGATIVE_INFINITY;
-        Player best = null;
-    double zx = adaptiveLeft != null ? adaptiveLeft.x : -1;
-    double zy = adaptiveLeft != null ? adaptiveLeft.y : -1;
-        double currentRadius = roundRadii[Math.min(round, roundRadii.length - 1)];
+        int best = -1;
+        final boolean hasZone = adaptiveLeft != null;
+
+        final int[] aliveIds = ps.aliveIds();
+        final int aliveCount = ps.countAlive();
 
         // prefer alive players inside the zone
-        for (Player p : players) {
-            if (!p.alive) continue;
-            double px = p.x;
-            double py = p.y;
-            if (zx < 0 || zy < 0) continue;
-            double d = Math.hypot(px - zx, py - zy);
-            if (d > currentRadius) continue;
-            double score = p.kills * 2 + p.activity;
-            if (best == null || score > bestScore || (score == bestScore && tieBreak(p, best))) {
+        for (int k = 0; k < aliveCount; k++) {
+            int p = aliveIds[k];
+            if (!hasZone || !membership.isInside(p)) continue;
+            double score = ps.kills[p] * 2 + ps.activity[p];
+            if (best < 0 || score > bestScore || (score == bestScore && tieBreak(p, best))) {
                 best = p; bestScore = score;
             }
         }
 
         // if none alive inside, fall back to best alive anywhere
-        if (best == null) {
-            for (Player p : players) {
-                if (!p.alive) continue;
-                double score = p.kills * 2 + p.activity;
-                if (best == null || score > bestScore || (score == bestScore && tieBreak(p, best))) {
+        if (best < 0) {
+            for (int k = 0; k < aliveCount; k++) {
+                int p = aliveIds[k];
+                double score = ps.kills[p] * 2 + ps.activity[p];
+                if (best < 0 || score > bestScore || (score == bestScore && tieBreak(p, best))) {
                     best = p; bestScore = score;
                 }
             }
         }
 
-        if (best != null) return best.id;
+        if (best >= 0) return best;
         // final fallback: pick best overall even if dead
-        best = null; bestScore = Double.NEGATIVE_INFINITY;
-        for (Player p : players) {
-            double score = p.kills * 2 + p.activity;
-            if (best == null || score > bestScore || (score == bestScore && tieBreak(p, best))) {
+        bestScore = Double.NEGATIVE_INFINITY;
+        for (int p = 0; p < n; p++) {
+            double score = ps.kills[p] * 2 + ps.activity[p];
+            if (best < 0 || score > bestScore || (score == bestScore && tieBreak(p, best))) {
                 best = p; bestScore = score;
             }
         }
-        return best != null ? best.id : -1;
+        return best;
     }
 
     // tie-break heuristic: prefer higher kills, then higher activity, then lower id
@@ -429,9 +717,9 @@ public class Simulator {
      * Tie-break comparator used by `findZoneWinner`.
      * Prefers higher kills, then higher activity, then lower id.
      */
-    private boolean tieBreak(Player a, Player b) {
-        if (a.kills != b.kills) return a.kills > b.kills;
-        if (Double.compare(a.activity, b.activity) != 0) return a.activity > b.activity;
-        return a.id < b.id;
+    private boolean tieBreak(int a, int b) {
+        if (players.kills[a] != players.kills[b]) return players.kills[a] > players.kills[b];
+        if (Float.compare(players.activity[a], players.activity[b]) != 0) return players.activity[a] > players.activity[b];
+        return a < b;
     }
 }
@@ -0,0 +1,84 @@
+package bluezone.contoller;
+
+import bluezone.util.JsonWriter;
+import bluezone.util.NanoHistogram;
+
+/**
+ * Per-simulator phase timings and event counters for the current game.
+ * Only the simulator's own thread writes to it, so recording is plain
+ * field arithmetic. Finished games are folded into the process-wide
+ * MetricsRegistry (published over JMX) by `flushToGlobal()`.
+ *
+ * Instrumentation is on unless the JVM runs with
+ * `-Dbluezone.metrics=false`. ENABLED is a static final constant and every
+ * call site is guarded by it, so when it is off the JIT drops the timing
+ * and counting code entirely.
+ */
+public final class SimulatorMetrics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("bluezone.metrics"));
+
+    // phases of stepAnimation() and advanceRound()
+    public static final int MOVEMENT = 0, COMBAT = 1, OUTSIDE = 2, ZONE_SELECTION = 3, WINNER_CHECK = 4;
+    public static final String[] PHASE_NAMES = {"movement", "combat", "outside", "zoneSelection", "winnerCheck"};
+
+    final NanoHistogram[] phases = new NanoHistogram[PHASE_NAMES.length];
+    public long ticks, rounds;
+    // players killed in combat; every duel ends with exactly one, so this is also the duel count
+    public long combatKills;
+    // players removed for staying far outside the zone
+    public long outsideKills;
+    // players removed at random by round advances and by the final cut-down to one survivor
+    public long roundEliminations;
+
+    public SimulatorMetrics() {
+        for (int p = 0; p < phases.length; p++) phases[p] = new NanoHistogram();
+    }
+
+    public NanoHistogram phase(int p) { return phases[p]; }
+
+    // Record the time since `start` against phase `p`; returns the current time for the next phase.
+    long lap(int p, long start) {
+        long now = System.nanoTime();
+        phases[p].record(now - start);
+        return now;
+    }
+
+    public void merge(SimulatorMetrics o) {
+        for (int p = 0; p < phases.length; p++) phases[p].merge(o.phases[p]);
+        ticks += o.ticks; rounds += o.rounds;
+        combatKills += o.combatKills;
+        outsideKills += o.outsideKills; roundEliminations += o.roundEliminations;
+    }
+
+    public void clear() {
+        for (NanoHistogram h : phases) h.clear();
+        ticks = rounds = 0;
+        combatKills = outsideKills = roundEliminations = 0;
+    }
+
+    public boolean isEmpty() { return ticks == 0 && rounds == 0 && combatKills == 0 && roundEliminations == 0; }
+
+    // Add this game's numbers to the process-wide totals and start over.
+    public void flushToGlobal() {
+        if (isEmpty()) return;
+        MetricsRegistry.global().add(this);
+        clear();
+    }
+
+    // Append the counters and a per-phase summary as a JSON object.
+    public void writeJson(JsonWriter w) {
+        w.raw('{');
+        w.key("ticks").number(ticks).raw(',');
+        w.key("rounds").number(rounds).raw(',');
+        w.key("combatKills").number(combatKills).raw(',');
+        w.key("outsideKills").number(outsideKills).raw(',');
+        w.key("roundEliminations").number(roundEliminations).raw(',');
+        w.key("phases").raw('{');
+        for (int p = 0; p < phases.length; p++) {
+            if (p > 0) w.raw(',');
+            w.key(PHASE_NAMES[p]);
+            phases[p].writeJson(w);
+        }
+        w.raw("}}");
+    }
+}
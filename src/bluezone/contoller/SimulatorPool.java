@@ -0,0 +1,58 @@
+package bluezone.contoller;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recycles Matches (with their Simulators) for forks of a SimState, so
+ * running many short-lived futures does not allocate a simulator, its
+ * player columns and scratch buffers for each one. A restored match only
+ * reallocates what has to grow. Pooled simulators run their movement on
+ * the calling thread (`movementPool` is null): forks are meant to be run
+ * side by side, one per thread. Safe to use from any thread.
+ *
+ * Pooled simulators are never `reset`, so their games reach the
+ * process-wide metrics when the match is restored to the next state and,
+ * for the last one, in `release`; otherwise rollouts would never be
+ * counted, or would be counted with whatever game next flushed the
+ * simulator.
+ */
+public class SimulatorPool {
+    // most idle matches kept; releases beyond this are dropped
+    public final int capacity;
+    private final ConcurrentLinkedQueue<Match> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public SimulatorPool(int capacity) { this.capacity = capacity; }
+
+    /**
+     * A match restored to `state`, taken from the pool when one fits
+     * (same canvas and config) and created otherwise. Hand it back with
+     * `release` when done.
+     */
+    public Match fork(SimState state) {
+        Match m;
+        while ((m = idle.poll()) != null) {
+            idleCount.decrementAndGet();
+            // a pool shared across configs keeps only what still fits
+            if (state.fits(m.sim)) break;
+        }
+        if (m == null) {
+            Simulator sim = new Simulator(state.canvasW, state.canvasH, 0, state.config);
+            sim.movementPool = null;
+            m = new Match(sim);
+        }
+        m.restore(state);
+        return m;
+    }
+
+    // Return a match obtained from `fork`; it must not be used afterwards.
+    public void release(Match m) {
+        if (SimulatorMetrics.ENABLED) m.sim.metrics.flushToGlobal();
+        if (m.sim.replay != null) return;
+        if (idleCount.incrementAndGet() > capacity) { idleCount.decrementAndGet(); return; }
+        idle.add(m);
+    }
+
+    public int idle() { return idleCount.get(); }
+}
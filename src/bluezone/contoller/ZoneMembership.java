@@ -0,0 +1,91 @@
+package bluezone.contoller;
+
+import bluezone.model.PlayerStore;
+
+/**
+ * Where every alive player stands relative to the current zone: squared
+ * distance to the centre and a classification into INSIDE (within the
+ * radius), BUFFER (within the approach buffer beyond it) or OUTSIDE,
+ * with a count per class.
+ *
+ * The Simulator refreshes it once per tick, fused into the movement pass,
+ * and recomputes it when a round moves the zone; deaths update the counts
+ * as they happen. Everything that asks "who is inside" (the outside timer,
+ * winner detection, round histories, stats, the panel) reads it instead of
+ * measuring distances again, so they always agree. Entries of dead players
+ * are DEAD and not counted.
+ */
+public final class ZoneMembership {
+    public static final byte INSIDE = 0, BUFFER = 1, OUTSIDE = 2, DEAD = 3;
+
+    public double[] dist2 = new double[0];
+    public byte[] cls = new byte[0];
+    // zone the classification refers to
+    public double cx, cy, radius, bufferRadius;
+    public int inside, buffer, outside;
+    // squared radius and buffer radius
+    double r2, b2;
+    // per-class counts from the vector kernel
+    private final int[] simdCounts = new int[3];
+
+    // Set the zone and size for a new pass; counts restart at zero.
+    void begin(int size, double cx, double cy, double radius, double approachBuffer) {
+        if (cls.length < size) { dist2 = new double[size]; cls = new byte[size]; }
+        java.util.Arrays.fill(cls, 0, size, DEAD);
+        this.cx = cx; this.cy = cy;
+        this.radius = radius;
+        this.bufferRadius = radius + approachBuffer;
+        r2 = radius * radius;
+        b2 = bufferRadius * bufferRadius;
+        inside = buffer = outside = 0;
+    }
+
+    // Classify player `i` at (x, y). Safe to call for distinct ids from several threads; counts are left to the caller.
+    byte classify(int i, double x, double y) {
+        double dx = x - cx, dy = y - cy;
+        double d2 = dx * dx + dy * dy;
+        dist2[i] = d2;
+        byte c = d2 <= r2 ? INSIDE : (d2 <= b2 ? BUFFER : OUTSIDE);
+        cls[i] = c;
+        return c;
+    }
+
+    void addCounts(int in, int buf, int out) { inside += in; buffer += buf; outside += out; }
+
+    // Classify every alive player from scratch, with the Vector API kernel if `simd` is set.
+    void computeAll(PlayerStore ps, double cx, double cy, double radius, double approachBuffer, boolean simd) {
+        begin(ps.size(), cx, cy, radius, approachBuffer);
+        if (simd) {
+            int[] counts = simdCounts;
+            counts[INSIDE] = counts[BUFFER] = counts[OUTSIDE] = 0;
+            SimdKernels.INSTANCE.clampAndClassify(ps, this, 0, ps.size(), false, 0, 0, 0, 0, counts);
+            addCounts(counts[INSIDE], counts[BUFFER], counts[OUTSIDE]);
+            return;
+        }
+        int[] ids = ps.aliveIds();
+        for (int k = 0, n = ps.countAlive(); k < n; k++) {
+            int i = ids[k];
+            switch (classify(i, ps.x[i], ps.y[i])) {
+                case INSIDE: inside++; break;
+                case BUFFER: buffer++; break;
+                default: outside++;
+            }
+        }
+    }
+
+    // Player `i` died.
+    void remove(int i) {
+        switch (cls[i]) {
+            case INSIDE: inside--; break;
+            case BUFFER: buffer--; break;
+            case OUTSIDE: outside--; break;
+            default: return;
+        }
+        cls[i] = DEAD;
+    }
+
+    public boolean isInside(int i) { return cls[i] == INSIDE; }
+    public double distance(int i) { return Math.sqrt(dist2[i]); }
+    // alive players beyond the radius, buffer band included
+    public int notInside() { return buffer + outside; }
+}
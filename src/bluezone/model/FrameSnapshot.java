@@ -0,0 +1,56 @@
+package bluezone.model;
+
+/**
+ * Copy of everything the UI shows about a running game, taken on the
+ * simulation thread between ticks. Alive players in view are stored
+ * densely: entry `k` (k < shown) of each column describes player `ids[k]`.
+ * With no view set every alive player is copied. When more players are in
+ * view than the viewer can usefully draw, `dense` is set, no players are
+ * copied, and `density` holds the number of alive players per screen
+ * tile of the view instead. A snapshot is only mutated while the
+ * simulation thread owns it, so readers on the EDT never see a
+ * half-written frame (see SimulationLoop).
+ */
+public class FrameSnapshot {
+    // bumped every time the snapshot is refilled
+    public long seq;
+    public long tick;
+    public int round, maxRounds;
+    public int countdownSeconds;
+    public boolean finished;
+    public int winnerLeftId = -1;
+    public boolean hasZone;
+    public double zoneX, zoneY, zoneRadius;
+    // alive players within zoneRadius, from the simulator's zone membership
+    public int insideCount;
+    public int playerCount;
+
+    public int aliveCount;
+    // world rectangle the player columns and density tiles were taken for
+    public double viewX0, viewY0, viewX1, viewY1;
+    // players copied into the columns (those in view, plus a margin)
+    public int shown;
+    public int[] ids = new int[0];
+    public double[] x = new double[0], y = new double[0];
+    public int[] kills = new int[0], distance = new int[0];
+    public float[] activity = new float[0];
+
+    // per-tile alive counts over the view, row-major tileCols x tileRows; valid when `dense`
+    public boolean dense;
+    public int tileCols, tileRows;
+    public int[] density = new int[0];
+
+    // Make room for `n` alive players; columns only grow.
+    public void ensureCapacity(int n) {
+        if (ids.length >= n) return;
+        ids = new int[n];
+        x = new double[n]; y = new double[n];
+        kills = new int[n]; distance = new int[n];
+        activity = new float[n];
+    }
+
+    // Make room for `n` density tiles; only grows.
+    public void ensureTiles(int n) {
+        if (density.length < n) density = new int[n];
+    }
+}
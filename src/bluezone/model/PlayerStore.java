@@ -0,0 +1,109 @@
+package bluezone.model;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented storage for all players of a game. Player `i` is the
+ * i-th entry of every column and its id is `i`. Hot loops index the
+ * primitive arrays directly; `get(i)` materialises a `Player` for code
+ * that only needs a read-only copy.
+ *
+ * Alive players are also kept in a dense id array (swap-remove on death,
+ * with a position map), so the alive count is O(1) and iterating or
+ * sampling alive players is O(alive) without allocation. The order of
+ * that array is arbitrary and changes as players die.
+ */
+public class PlayerStore {
+    public double[] x = new double[0], y = new double[0];
+    public double[] targetX = new double[0], targetY = new double[0];
+    public int[] kills = new int[0];
+    public int[] distance = new int[0];
+    public float[] activity = new float[0];
+    // one bit per player
+    private long[] alive = new long[0];
+    private long[] hasTarget = new long[0];
+    private int[] aliveIds = new int[0];
+    private int[] alivePos = new int[0];
+    private int aliveCount = 0;
+    private int size = 0;
+
+    public int size() { return size; }
+
+    /**
+     * Resize to `count` players and clear every column. Arrays are only
+     * reallocated when the store grows.
+     */
+    public void reset(int count) {
+        if (x.length < count) {
+            x = new double[count]; y = new double[count];
+            targetX = new double[count]; targetY = new double[count];
+            kills = new int[count]; distance = new int[count];
+            activity = new float[count];
+            alive = new long[(count + 63) >>> 6];
+            hasTarget = new long[(count + 63) >>> 6];
+            aliveIds = new int[count];
+            alivePos = new int[count];
+        }
+        size = count;
+        Arrays.fill(x, 0, count, 0);
+        Arrays.fill(y, 0, count, 0);
+        Arrays.fill(targetX, 0, count, Double.NaN);
+        Arrays.fill(targetY, 0, count, Double.NaN);
+        Arrays.fill(kills, 0, count, 0);
+        Arrays.fill(distance, 0, count, 0);
+        Arrays.fill(activity, 0, count, 0f);
+        Arrays.fill(alive, 0);
+        Arrays.fill(hasTarget, 0);
+        Arrays.fill(alivePos, -1);
+        aliveCount = 0;
+    }
+
+    public boolean isAlive(int i) { return (alive[i >>> 6] & (1L << i)) != 0; }
+    public void setAlive(int i, boolean v) {
+        if (v == isAlive(i)) return;
+        if (v) {
+            alive[i >>> 6] |= 1L << i;
+            alivePos[i] = aliveCount;
+            aliveIds[aliveCount++] = i;
+        } else {
+            alive[i >>> 6] &= ~(1L << i);
+            // swap-remove: move the last alive id into the freed slot
+            int pos = alivePos[i];
+            int last = aliveIds[--aliveCount];
+            aliveIds[pos] = last;
+            alivePos[last] = pos;
+            alivePos[i] = -1;
+        }
+    }
+
+    // The 64 alive bits for ids [64 * w, 64 * w + 63].
+    public long aliveWord(int w) { return alive[w]; }
+
+    public boolean hasTarget(int i) { return (hasTarget[i >>> 6] & (1L << i)) != 0; }
+    public void setHasTarget(int i, boolean v) {
+        if (v) hasTarget[i >>> 6] |= 1L << i; else hasTarget[i >>> 6] &= ~(1L << i);
+    }
+
+    // Number of alive players.
+    public int countAlive() { return aliveCount; }
+
+    // Id of the k-th alive player, 0 <= k < countAlive().
+    public int aliveId(int k) { return aliveIds[k]; }
+
+    // Backing array of alive ids; only the first countAlive() entries are valid. Do not modify.
+    public int[] aliveIds() { return aliveIds; }
+
+    // Copy player `i` into a standalone `Player`. Writes to the copy are not reflected back.
+    public Player get(int i) {
+        Player p = new Player();
+        p.id = i;
+        p.x = x[i]; p.y = y[i];
+        p.kills = kills[i];
+        p.distance = distance[i];
+        p.activity = activity[i];
+        p.alive = isAlive(i);
+        p.targetX = targetX[i]; p.targetY = targetY[i];
+        p.hasTarget = hasTarget(i);
+        return p;
+    }
+}
@@ -0,0 +1,113 @@
+package bluezone.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over non-negative double weights, used for weighted
+ * sampling. Point updates, prefix sums and the inverse (find the index a
+ * cumulative weight falls into) are all O(log n).
+ */
+public class FenwickTree {
+    private double[] tree = new double[1]; // 1-based
+    private double[] values = new double[0];
+    private int n = 0;
+    private int topBit = 0;
+
+    // Resize to `n` entries, all zero.
+    public void reset(int n) {
+        if (values.length < n) { values = new double[n]; tree = new double[n + 1]; }
+        this.n = n;
+        Arrays.fill(values, 0, n, 0.0);
+        Arrays.fill(tree, 0, n + 1, 0.0);
+        topBit = n == 0 ? 0 : Integer.highestOneBit(n);
+    }
+
+    public int size() { return n; }
+    public double get(int i) { return values[i]; }
+
+    /**
+     * Set entry `i` without touching the tree. Call `rebuild()` after a
+     * batch of these; use `set` for single updates.
+     */
+    public void setRaw(int i, double w) { values[i] = w; }
+
+    // Rebuild all partial sums from the raw values in O(n).
+    public void rebuild() {
+        for (int i = 1; i <= n; i++) tree[i] = values[i - 1];
+        for (int i = 1; i <= n; i++) {
+            int j = i + (i & -i);
+            if (j <= n) tree[j] += tree[i];
+        }
+    }
+
+    public void set(int i, double w) { add(i, w - values[i]); }
+
+    public void add(int i, double delta) {
+        values[i] += delta;
+        for (int j = i + 1; j <= n; j += j & -j) tree[j] += delta;
+    }
+
+    // Sum of entries [0, i).
+    public double prefix(int i) {
+        double s = 0;
+        for (int j = i; j > 0; j -= j & -j) s += tree[j];
+        return s;
+    }
+
+    /**
+     * Sum of all entries, added up in the order `find` walks the tree, so
+     * that find(total()) cannot run past the last entry on a rounding
+     * difference.
+     */
+    public double total() {
+        double s = 0;
+        for (int step = topBit, pos = 0; step > 0; step >>= 1) {
+            if (pos + step <= n) { pos += step; s += tree[pos]; }
+        }
+        return s;
+    }
+
+    /**
+     * Smallest index `i` whose cumulative weight (entries 0..i inclusive)
+     * reaches `target`, for 0 < target <= total(). Entries with zero
+     * weight are not returned, except when rounding left in the partial
+     * sums by `add` matters: a target within a few ulps of a cumulative
+     * weight (e.g. total() itself) may land on an empty entry next to it.
+     */
+    public int find(double target) {
+        int pos = 0;
+        double sum = 0;
+        for (int step = topBit; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= n && sum + tree[next] < target) {
+                pos = next;
+                sum += tree[next];
+            }
+        }
+        assert pos < n : "target " + target + " past the total " + total();
+        return pos;
+    }
+
+    /**
+     * Append the entries and partial sums to `b` as they are (16 bytes per
+     * entry). Rebuilding from the entries alone could round the sums
+     * differently and change which index `find` returns.
+     */
+    public void write(ByteBuffer b) {
+        b.putInt(n);
+        b.asDoubleBuffer().put(values, 0, n).put(tree, 1, n);
+        b.position(b.position() + 16 * n);
+    }
+
+    // Restore what `write` saved, reusing the arrays when they are large enough.
+    public void read(ByteBuffer b) {
+        int count = b.getInt();
+        if (values.length < count) { values = new double[count]; tree = new double[count + 1]; }
+        n = count;
+        topBit = n == 0 ? 0 : Integer.highestOneBit(n);
+        tree[0] = 0;
+        b.asDoubleBuffer().get(values, 0, n).get(tree, 1, n);
+        b.position(b.position() + 16 * n);
+    }
+}
@@ -0,0 +1,45 @@
+package bluezone.util;
+
+import java.util.Random;
+
+/**
+ * java.util.Random whose 48-bit state can be read and restored, so a game
+ * can be snapshot and continued elsewhere with the same draws. It runs the
+ * same linear congruential generator and scrambles seeds the same way, so
+ * for a given seed every draw equals java.util.Random's. Not thread safe
+ * (the state is a plain field, not an AtomicLong), which also makes it a
+ * little cheaper per draw. nextGaussian is not covered by the saved state.
+ */
+public class ForkableRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // not initialised here: Random's constructor sets it through setSeed before field initialisers run
+    private long state;
+
+    public ForkableRandom(long seed) { super(seed); }
+
+    @Override public void setSeed(long seed) {
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /**
+     * Point the generator at the draws addressed by (tick, player, other,
+     * purpose). A sequential generator like this one ignores it; the
+     * counter-based PhiloxRandom draws from that address's own stream.
+     */
+    public void at(long tick, int player, int other, int purpose) { }
+
+    // The raw generator state, for `setState`.
+    public long getState() { return state; }
+
+    public void setState(long state) { this.state = state & MASK; }
+}
@@ -0,0 +1,144 @@
+package bluezone.util;
+
+import bluezone.model.PlayerStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Where players stand, fight and die, summed over any number of games on
+ * a fixed grid over the world. A Simulator with `heatmap` set adds to it
+ * every tick; heatmaps of the same grid merge by adding counts, so
+ * parallel runs each fill their own and combine at the end.
+ *
+ * Layers (counts per cell):
+ *   OCCUPANCY  alive players, every tick
+ *   KILLS      combat deaths, at the loser's position
+ *   DEATHS     every death: combat, outside the zone, round eliminations
+ *   ZONES      zone centres chosen at round advances
+ *
+ * File layout (big-endian, like replays): "BZHM", version, worldW,
+ * worldH, cols, rows, layer count, long games, long ticks, then each
+ * layer as cols * rows longs, row by row. The size depends only on the
+ * grid (160 KB for the default 100 x 50 on a 1000 x 500 world), not on
+ * how many games went into it.
+ */
+public final class Heatmap {
+    public static final int MAGIC = 0x425A484D; // "BZHM"
+    public static final int VERSION = 1;
+    public static final int OCCUPANCY = 0, KILLS = 1, DEATHS = 2, ZONES = 3, LAYERS = 4;
+    public static final String[] LAYER_NAMES = {"Occupancy", "Kills", "Deaths", "Zone centres"};
+    // cells along the longer side of the world for `forWorld`
+    public static final int DEFAULT_CELLS = 100;
+    private static final int HEADER_BYTES = 7 * 4 + 2 * 8;
+
+    public final int worldW, worldH, cols, rows;
+    // counts[layer][row * cols + col]
+    public final long[][] counts = new long[LAYERS][];
+    // games started and ticks played into this heatmap
+    public long games, ticks;
+    // cells per world unit
+    private final double sx, sy;
+
+    public Heatmap(int worldW, int worldH, int cols, int rows) {
+        if (worldW <= 0 || worldH <= 0 || cols <= 0 || rows <= 0) throw new IllegalArgumentException("heatmap needs a positive world and grid");
+        this.worldW = worldW; this.worldH = worldH;
+        this.cols = cols; this.rows = rows;
+        this.sx = cols / (double) worldW; this.sy = rows / (double) worldH;
+        for (int l = 0; l < LAYERS; l++) counts[l] = new long[cols * rows];
+    }
+
+    // A heatmap of a worldW x worldH world with square cells, DEFAULT_CELLS along the longer side.
+    public static Heatmap forWorld(int worldW, int worldH) {
+        double cell = Math.max(worldW, worldH) / (double) DEFAULT_CELLS;
+        return new Heatmap(worldW, worldH, Math.max(1, (int) Math.ceil(worldW / cell)), Math.max(1, (int) Math.ceil(worldH / cell)));
+    }
+
+    // Cell of world point (x, y); points off the world count in the nearest edge cell.
+    public int cell(double x, double y) {
+        int cx = Math.max(0, Math.min(cols - 1, (int) (x * sx)));
+        int cy = Math.max(0, Math.min(rows - 1, (int) (y * sy)));
+        return cy * cols + cx;
+    }
+
+    public void add(int layer, double x, double y) { counts[layer][cell(x, y)]++; }
+
+    // Count one tick: every alive player adds to the occupancy of its cell.
+    public void tick(PlayerStore ps) {
+        ticks++;
+        final long[] c = counts[OCCUPANCY];
+        final int[] alive = ps.aliveIds();
+        final double[] x = ps.x, y = ps.y;
+        final int n = ps.countAlive(), lastCol = cols - 1, lastRow = rows - 1;
+        for (int k = 0; k < n; k++) {
+            int i = alive[k];
+            int cx = Math.max(0, Math.min(lastCol, (int) (x[i] * sx)));
+            int cy = Math.max(0, Math.min(lastRow, (int) (y[i] * sy)));
+            c[cy * cols + cx]++;
+        }
+    }
+
+    // Whether `other` has the same world and grid, so the two can be merged.
+    public boolean fits(Heatmap other) {
+        return other.worldW == worldW && other.worldH == worldH && other.cols == cols && other.rows == rows;
+    }
+
+    // Add the counts of `other` (same world and grid) to this one.
+    public void merge(Heatmap other) {
+        if (!fits(other)) throw new IllegalArgumentException("heatmaps of different grids cannot be merged");
+        for (int l = 0; l < LAYERS; l++) {
+            long[] a = counts[l], b = other.counts[l];
+            for (int c = 0; c < a.length; c++) a[c] += b[c];
+        }
+        games += other.games;
+        ticks += other.ticks;
+    }
+
+    // Largest count of `layer`, for scaling an overlay.
+    public long max(int layer) {
+        long m = 0;
+        for (long v : counts[layer]) m = Math.max(m, v);
+        return m;
+    }
+
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES + LAYERS * cols * rows * 8);
+        b.putInt(MAGIC).putInt(VERSION).putInt(worldW).putInt(worldH).putInt(cols).putInt(rows).putInt(LAYERS);
+        b.putLong(games).putLong(ticks);
+        for (long[] layer : counts) {
+            b.asLongBuffer().put(layer);
+            b.position(b.position() + layer.length * 8);
+        }
+        b.flip();
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (b.hasRemaining()) ch.write(b);
+        }
+    }
+
+    // Read a file written by `write`; it is mapped rather than streamed in.
+    public static Heatmap read(File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_BYTES) throw new IOException("not a heatmap file: " + file);
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (b.getInt() != MAGIC) throw new IOException("not a heatmap file: " + file);
+            int version = b.getInt();
+            if (version != VERSION) throw new IOException("unsupported heatmap version " + version);
+            Heatmap h = new Heatmap(b.getInt(), b.getInt(), b.getInt(), b.getInt());
+            int layers = b.getInt();
+            if (layers != LAYERS || ch.size() != HEADER_BYTES + (long) layers * h.cols * h.rows * 8) throw new IOException("truncated heatmap file: " + file);
+            h.games = b.getLong();
+            h.ticks = b.getLong();
+            for (long[] layer : h.counts) {
+                b.asLongBuffer().get(layer);
+                b.position(b.position() + layer.length * 8);
+            }
+            return h;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package bluezone.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal append-only JSON/ASCII encoder into a reusable byte buffer.
+ * Numbers are written digit by digit (no String.format, no boxing), so
+ * encoding a run costs a single pass and no garbage once the buffer has
+ * grown to size. Callers are responsible for JSON structure (commas,
+ * brackets); the helpers only take care of value formatting.
+ */
+public final class JsonWriter {
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L
+    };
+    private byte[] buf;
+    private int len = 0;
+
+    public JsonWriter() { this(4096); }
+    public JsonWriter(int capacity) { buf = new byte[Math.max(16, capacity)]; }
+
+    public JsonWriter reset() { len = 0; return this; }
+    public int length() { return len; }
+    // Discard everything after the first `length` bytes.
+    public JsonWriter truncate(int length) { len = Math.min(len, length); return this; }
+    // Backing array; only the first length() bytes are valid.
+    public byte[] array() { return buf; }
+    public byte[] toBytes() { return Arrays.copyOf(buf, len); }
+    @Override public String toString() { return new String(buf, 0, len, StandardCharsets.UTF_8); }
+
+    public JsonWriter raw(char c) {
+        ensure(1);
+        buf[len++] = (byte) c;
+        return this;
+    }
+
+    // Append ASCII text verbatim (keys, punctuation, pre-escaped values).
+    public JsonWriter raw(String ascii) {
+        int n = ascii.length();
+        ensure(n);
+        for (int i = 0; i < n; i++) buf[len++] = (byte) ascii.charAt(i);
+        return this;
+    }
+
+    // Append `"key":`.
+    public JsonWriter key(String key) { return raw('"').raw(key).raw('"').raw(':'); }
+
+    // Append a quoted, escaped string (UTF-8). A surrogate pair is encoded as
+    // its code point; a lone surrogate has none and is written as a JSON escape.
+    public JsonWriter string(String s) {
+        raw('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') raw('\\').raw(c);
+            else if (c < 0x20) { raw("\\u00"); raw(Character.forDigit(c >> 4, 16)); raw(Character.forDigit(c & 15, 16)); }
+            else if (c < 0x80) raw(c);
+            else if (!Character.isSurrogate(c)) utf8(c);
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1)))
+                utf8(Character.toCodePoint(c, s.charAt(++i)));
+            else { raw("\\u"); for (int k = 12; k >= 0; k -= 4) raw(Character.forDigit(c >> k & 15, 16)); }
+        }
+        return raw('"');
+    }
+
+    // Append code point `cp` (at least 0x80, not a surrogate) as UTF-8.
+    private void utf8(int cp) {
+        ensure(4);
+        if (cp < 0x800) {
+            buf[len++] = (byte) (0xC0 | cp >> 6);
+        } else if (cp < 0x10000) {
+            buf[len++] = (byte) (0xE0 | cp >> 12);
+            buf[len++] = (byte) (0x80 | cp >> 6 & 0x3F);
+        } else {
+            buf[len++] = (byte) (0xF0 | cp >> 18);
+            buf[len++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            buf[len++] = (byte) (0x80 | cp >> 6 & 0x3F);
+        }
+        buf[len++] = (byte) (0x80 | cp & 0x3F);
+    }
+
+    public JsonWriter bool(boolean v) { return raw(v ? "true" : "false"); }
+
+    public JsonWriter number(long v) {
+        if (v == Long.MIN_VALUE) return raw(Long.toString(v));
+        ensure(20);
+        if (v < 0) { buf[len++] = '-'; v = -v; }
+        int start = len;
+        do { buf[len++] = (byte) ('0' + (v % 10)); v /= 10; } while (v != 0);
+        reverse(start, len - 1);
+        return this;
+    }
+
+    /**
+     * Append `v` rounded half-up to `decimals` (0..9) fraction digits, the
+     * same text "%.Nf" would produce for values of realistic magnitude.
+     * Non-finite values are written as `null`.
+     */
+    public JsonWriter fixed(double v, int decimals) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) return raw("null");
+        long scale = POW10[decimals];
+        boolean neg = v < 0;
+        double scaled = Math.abs(v) * scale;
+        if (scaled >= 9.0e18) return raw(Double.toString(v)); // out of long range; keep full precision
+        long r = (long) (scaled + 0.5);
+        if (neg && r != 0) raw('-');
+        number(r / scale);
+        if (decimals > 0) {
+            ensure(decimals + 1);
+            buf[len++] = '.';
+            long frac = r % scale;
+            for (int d = decimals - 1; d >= 0; d--) {
+                buf[len + d] = (byte) ('0' + (frac % 10));
+                frac /= 10;
+            }
+            len += decimals;
+        }
+        return this;
+    }
+
+    // Append a JSON array of ints.
+    public JsonWriter intArray(java.util.List<Integer> values) {
+        raw('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) raw(',');
+            number(values.get(i));
+        }
+        return raw(']');
+    }
+
+    private void reverse(int a, int b) {
+        while (a < b) { byte t = buf[a]; buf[a++] = buf[b]; buf[b--] = t; }
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+}
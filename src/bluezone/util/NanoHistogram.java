@@ -0,0 +1,83 @@
+package bluezone.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of non-negative durations (nanoseconds). Values
+ * below 8 get their own bucket; above that every power of two is split
+ * into 8 linear sub-buckets, so a bucket is at most 12.5% wide relative
+ * to its value. Recording is a couple of shifts and an array increment;
+ * histograms merge by adding counts.
+ */
+public class NanoHistogram {
+    public static final int BUCKETS = 488;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0, sum = 0, max = 0;
+
+    public static int bucket(long v) {
+        if (v < 8) return v <= 0 ? 0 : (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        return ((e - 2) << 3) | (int) ((v >>> (e - 3)) & 7);
+    }
+
+    // Smallest value that falls into bucket `b`.
+    public static long lowerBound(int b) {
+        if (b < 8) return b;
+        int e = (b >>> 3) + 2;
+        return (8L | (b & 7)) << (e - 3);
+    }
+
+    public void record(long nanos) {
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void merge(NanoHistogram o) {
+        for (int b = 0; b < BUCKETS; b++) counts[b] += o.counts[b];
+        count += o.count;
+        sum += o.sum;
+        if (o.max > max) max = o.max;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = sum = max = 0;
+    }
+
+    public long count() { return count; }
+    public long sum() { return sum; }
+    public long max() { return max; }
+    public double mean() { return count == 0 ? 0 : (double) sum / count; }
+
+    /**
+     * Value at quantile `q` (0..1), reported as the middle of the bucket it
+     * falls into and capped at the recorded maximum. 0 when empty.
+     */
+    public long percentile(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                long lo = lowerBound(b), hi = b + 1 < BUCKETS ? lowerBound(b + 1) : Long.MAX_VALUE;
+                return Math.min(max, lo + (hi - lo - 1) / 2);
+            }
+        }
+        return max;
+    }
+
+    // Append {"count":..,"meanNs":..,"p50Ns":..,"p99Ns":..,"maxNs":..}.
+    public void writeJson(JsonWriter w) {
+        w.raw('{');
+        w.key("count").number(count).raw(',');
+        w.key("meanNs").fixed(mean(), 1).raw(',');
+        w.key("p50Ns").number(percentile(0.50)).raw(',');
+        w.key("p99Ns").number(percentile(0.99)).raw(',');
+        w.key("maxNs").number(max);
+        w.raw('}');
+    }
+}
@@ -0,0 +1,67 @@
+package bluezone.util;
+
+/**
+ * Counter-based generator (Philox4x32-10, Salmon et al., SC'11): every
+ * block of four 32-bit outputs is a keyed bijection of a 128-bit counter,
+ * so a draw is a pure function of (seed, address) and needs no state from
+ * earlier draws. `at(tick, player, other, purpose)` points the generator
+ * at the stream of one such address; the draws that follow walk that
+ * stream's blocks. The same address under the same seed always yields the
+ * same draws, on any thread, whatever was drawn elsewhere before.
+ *
+ * Counter layout: word 0 = tick, 1 = player, 2 = other (e.g. an opponent
+ * or the round), 3 = purpose << 24 | block, so one stream holds up to
+ * 2^24 blocks (64M ints). The seed is the key and is all `getState`
+ * returns: snapshots are taken between phases, and every phase starts
+ * with `at`.
+ */
+public class PhiloxRandom extends ForkableRandom {
+    private static final long serialVersionUID = 1L;
+    private static final int M0 = 0xD2511F53, M1 = 0xCD9E8D57;
+    private static final int W0 = 0x9E3779B9, W1 = 0xBB67AE85;
+
+    // not initialised here: Random's constructor sets them through setSeed before field initialisers run
+    private int k0, k1;
+    private int c0, c1, c2, c3;
+    private int block;
+    private final int[] out = new int[4];
+    private int used = 4;
+
+    public PhiloxRandom(long seed) { super(seed); }
+
+    @Override public void setSeed(long seed) {
+        super.setSeed(seed);
+        k0 = (int) seed; k1 = (int) (seed >>> 32);
+        used = 4; block = 0;
+    }
+
+    @Override public void at(long tick, int player, int other, int purpose) {
+        c0 = (int) tick; c1 = player; c2 = other; c3 = purpose << 24;
+        block = 0;
+        used = 4;
+    }
+
+    @Override protected int next(int bits) {
+        if (used == 4) { generate(c0, c1, c2, c3 | block++, k0, k1, out); used = 0; }
+        return out[used++] >>> (32 - bits);
+    }
+
+    @Override public long getState() { return (long) k1 << 32 | (k0 & 0xFFFFFFFFL); }
+
+    @Override public void setState(long state) { setSeed(state); }
+
+    // One Philox4x32-10 block: the four outputs for counter (x0..x3) under key (k0, k1).
+    public static void generate(int x0, int x1, int x2, int x3, int k0, int k1, int[] out) {
+        for (int r = 0; r < 10; r++) {
+            long p0 = (M0 & 0xFFFFFFFFL) * (x0 & 0xFFFFFFFFL);
+            long p1 = (M1 & 0xFFFFFFFFL) * (x2 & 0xFFFFFFFFL);
+            int y0 = (int) (p1 >>> 32) ^ x1 ^ k0;
+            int y2 = (int) (p0 >>> 32) ^ x3 ^ k1;
+            x1 = (int) p1;
+            x3 = (int) p0;
+            x0 = y0; x2 = y2;
+            k0 += W0; k1 += W1;
+        }
+        out[0] = x0; out[1] = x1; out[2] = x2; out[3] = x3;
+    }
+}
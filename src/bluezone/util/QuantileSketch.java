@@ -0,0 +1,85 @@
+package bluezone.util;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for non-negative values with a bounded
+ * relative error. Values are counted in logarithmic buckets whose bounds
+ * grow by a factor of (1+a)/(1-a), so any reported quantile is within
+ * `a` (1%) of a value that really sits at that rank. Values between 0 and
+ * MIN_VALUE share one zero bucket; negative values are counted as 0 and
+ * values above MAX_VALUE land in the last bucket. Merging adds bucket
+ * counts, so the result does not depend on how values were split across
+ * sketches.
+ */
+public class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+    public static final double MIN_VALUE = 1e-6, MAX_VALUE = 1e12;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int OFFSET = (int) Math.ceil(Math.log(MIN_VALUE) / LOG_GAMMA);
+    private static final int BUCKETS = (int) Math.ceil(Math.log(MAX_VALUE) / LOG_GAMMA) - OFFSET + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long zeros = 0, count = 0;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    static int bucket(double v) {
+        int b = (int) Math.ceil(Math.log(v) / LOG_GAMMA) - OFFSET;
+        return b < 0 ? 0 : Math.min(b, BUCKETS - 1);
+    }
+
+    // Representative value of bucket `b`: within RELATIVE_ACCURACY of both of its bounds.
+    static double value(int b) {
+        return 2 * Math.pow(GAMMA, b + OFFSET) / (GAMMA + 1);
+    }
+
+    public void add(double v) {
+        if (v < MIN_VALUE) { zeros++; v = Math.max(v, 0); }
+        else counts[bucket(v)]++;
+        count++;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    public void merge(QuantileSketch o) {
+        for (int b = 0; b < BUCKETS; b++) counts[b] += o.counts[b];
+        zeros += o.zeros;
+        count += o.count;
+        if (o.min < min) min = o.min;
+        if (o.max > max) max = o.max;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        zeros = count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public long count() { return count; }
+
+    // Value at quantile `q` (0..1), clamped to the observed range. 0 when empty.
+    public double quantile(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        if (rank <= zeros) return min;
+        long seen = zeros;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return Math.max(min, Math.min(max, value(b)));
+        }
+        return max;
+    }
+
+    // Append {"p10":..,"p50":..,"p90":..,"p99":..}.
+    public void writeJson(JsonWriter w) {
+        w.raw('{');
+        w.key("p10").fixed(quantile(0.10), 4).raw(',');
+        w.key("p50").fixed(quantile(0.50), 4).raw(',');
+        w.key("p90").fixed(quantile(0.90), 4).raw(',');
+        w.key("p99").fixed(quantile(0.99), 4);
+        w.raw('}');
+    }
+}
@@ -0,0 +1,187 @@
+package bluezone.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped reader for files produced by ReplayWriter. `seek(frame)`
+ * decodes forward from the nearest keyframe at or before the requested
+ * frame, so any tick can be reached after at most one keyframe interval
+ * of delta decoding. The decoded state is exposed in the public arrays
+ * and fields below and is overwritten by the next seek.
+ *
+ * Files without an index (recording was interrupted) are scanned once
+ * on open to rebuild it.
+ */
+public class ReplayReader implements AutoCloseable {
+    public final int playerCount, canvasW, canvasH;
+    public final float[] activity;
+    // decoded state of the current frame
+    public final double[] x, y;
+    public final int[] kills;
+    public final boolean[] alive;
+    public long tick;
+    public int round;
+    public double zoneX, zoneY, zoneRadius;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buf;
+    private final int quant;
+    private final int framesStart;
+    private int[] keyFrames;
+    private long[] keyOffsets;
+    private int frameCount;
+    private int frame = -1;   // frame currently decoded
+    private int pos;          // offset of the frame after `frame`
+    private final int[] qx, qy;
+
+    public ReplayReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buf.getInt(0) != ReplayWriter.MAGIC) throw new IOException("not a replay file: " + file);
+        if (buf.getInt(4) != ReplayWriter.VERSION) throw new IOException("unsupported replay version " + buf.getInt(4));
+        playerCount = buf.getInt(8);
+        canvasW = buf.getInt(12);
+        canvasH = buf.getInt(16);
+        quant = buf.getInt(20);
+        activity = new float[playerCount];
+        for (int i = 0; i < playerCount; i++) activity[i] = buf.getFloat(28 + 4 * i);
+        framesStart = 28 + 4 * playerCount;
+        x = new double[playerCount]; y = new double[playerCount];
+        kills = new int[playerCount];
+        alive = new boolean[playerCount];
+        qx = new int[playerCount]; qy = new int[playerCount];
+        if (!readIndex()) rebuildIndex();
+    }
+
+    public int frameCount() { return frameCount; }
+    public int frame() { return frame; }
+
+    // Decode frame `f` (clamped to the valid range) into the public state.
+    public void seek(int f) {
+        if (frameCount == 0) return;
+        f = Math.max(0, Math.min(frameCount - 1, f));
+        if (f == frame) return;
+        if (f < frame || f - frame > keyIntervalAt(f)) {
+            int k = Arrays.binarySearch(keyFrames, 0, keyFrames.length, f);
+            if (k < 0) k = -k - 2;
+            pos = (int) keyOffsets[k];
+            frame = keyFrames[k] - 1;
+        }
+        while (frame < f) { pos = decode(pos); frame++; }
+    }
+
+    // Distance from `f` back to its keyframe; decoding forward further than that is never cheaper.
+    private int keyIntervalAt(int f) {
+        int k = Arrays.binarySearch(keyFrames, 0, keyFrames.length, f);
+        if (k < 0) k = -k - 2;
+        return f - keyFrames[k];
+    }
+
+    // Decode the frame at `p` into the current state; returns the offset of the next frame.
+    private int decode(int p) {
+        int[] cur = {p};
+        int type = buf.get(cur[0]++) & 0xFF;
+        tick = varint(cur);
+        round = (int) varint(cur);
+        zoneX = zigzag(cur) / (double) quant;
+        zoneY = zigzag(cur) / (double) quant;
+        zoneRadius = zigzag(cur) / (double) quant;
+        if (type == ReplayWriter.KEYFRAME) {
+            for (int b = 0; b < playerCount; b += 8) {
+                int bits = buf.get(cur[0]++) & 0xFF;
+                for (int k = 0; k < 8 && b + k < playerCount; k++) alive[b + k] = (bits & (1 << k)) != 0;
+            }
+            for (int i = 0; i < playerCount; i++) {
+                if (!alive[i]) continue;
+                qx[i] = zigzag(cur); qy[i] = zigzag(cur);
+                kills[i] = (int) varint(cur);
+            }
+        } else {
+            int deaths = (int) varint(cur);
+            for (int k = 0, id = -1; k < deaths; k++) { id += (int) varint(cur) + 1; alive[id] = false; }
+            int changed = (int) varint(cur);
+            for (int k = 0, id = -1; k < changed; k++) { id += (int) varint(cur) + 1; kills[id] += (int) varint(cur); }
+            for (int i = 0; i < playerCount; i++) {
+                if (!alive[i]) continue;
+                qx[i] += zigzag(cur); qy[i] += zigzag(cur);
+            }
+        }
+        for (int i = 0; i < playerCount; i++) {
+            if (!alive[i]) continue;
+            x[i] = qx[i] / (double) quant;
+            y[i] = qy[i] / (double) quant;
+        }
+        return cur[0];
+    }
+
+    private boolean readIndex() {
+        int size = buf.limit();
+        if (size < framesStart + 12 || buf.getInt(size - 4) != ReplayWriter.INDEX_MAGIC) return false;
+        long indexOffset = buf.getLong(size - 12);
+        int[] cur = {(int) indexOffset};
+        int count = (int) varint(cur);
+        keyFrames = new int[count];
+        keyOffsets = new long[count];
+        for (int k = 0; k < count; k++) {
+            keyFrames[k] = (int) varint(cur);
+            keyOffsets[k] = buf.getLong(cur[0]);
+            cur[0] += 8;
+        }
+        // frames end where the index begins; count them by walking from the last keyframe
+        frameCount = count == 0 ? 0 : keyFrames[count - 1];
+        int p = count == 0 ? (int) indexOffset : (int) keyOffsets[count - 1];
+        while (p < indexOffset) { p = decode(p); frameCount++; }
+        frame = -1;
+        return true;
+    }
+
+    // Walk every complete frame to find the keyframes of a file without an index.
+    private void rebuildIndex() {
+        int[] frames = new int[16];
+        long[] offsets = new long[16];
+        int count = 0, p = framesStart, f = 0;
+        int end = buf.limit();
+        try {
+            while (p < end) {
+                int type = buf.get(p) & 0xFF;
+                if (type == ReplayWriter.KEYFRAME) {
+                    if (count == frames.length) { frames = Arrays.copyOf(frames, count * 2); offsets = Arrays.copyOf(offsets, count * 2); }
+                    frames[count] = f; offsets[count++] = p;
+                } else if (count == 0) {
+                    break;
+                }
+                p = decode(p);
+                f++;
+            }
+        } catch (IndexOutOfBoundsException truncated) {
+            // the last frame was only partially written
+        }
+        keyFrames = Arrays.copyOf(frames, count);
+        keyOffsets = Arrays.copyOf(offsets, count);
+        frameCount = f;
+        frame = -1;
+    }
+
+    private long varint(int[] cur) {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            int b = buf.get(cur[0]++) & 0xFF;
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+            shift += 7;
+        }
+    }
+
+    private int zigzag(int[] cur) {
+        int v = (int) varint(cur);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    @Override public void close() throws IOException { channel.close(); }
+}
@@ -0,0 +1,170 @@
+package bluezone.util;
+
+import bluezone.contoller.Simulator;
+import bluezone.model.PlayerStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Records every animation tick of a Simulator into a compact replay file.
+ *
+ * Layout (all fixed-width fields big-endian):
+ *   header:  "BZRP", version, playerCount, canvasW, canvasH, QUANT,
+ *            keyframeInterval, then one float activity per player
+ *   frames:  one per tick, either a keyframe or a delta frame (below)
+ *   index:   varint keyframe count, then (varint frame number, long offset)
+ *            per keyframe
+ *   footer:  long index offset, "BZRI"
+ *
+ * Every frame starts with a type byte, varint tick, varint round and the
+ * zone centre and radius as zigzag varints. Coordinates are quantised to
+ * 1/QUANT pixel. A keyframe then stores the alive bitset and, for each
+ * alive player in id order, the absolute position and kill count. A delta
+ * frame stores the ids that died and the ids whose kills went up since
+ * the previous frame (gap-encoded), followed by per-player position deltas
+ * against the previous frame. Typical movement fits one byte per axis.
+ */
+public class ReplayWriter implements AutoCloseable {
+    public static final int MAGIC = 0x425A5250;       // "BZRP"
+    public static final int INDEX_MAGIC = 0x425A5249; // "BZRI"
+    public static final int VERSION = 1;
+    // quantisation steps per pixel
+    public static final int QUANT = 16;
+    public static final int KEYFRAME = 0, DELTA = 1;
+
+    private final FileChannel channel;
+    private final int n;
+    private final int keyframeInterval;
+    private final ByteSink out = new ByteSink();
+    private long flushed = 0;   // bytes already written to the channel
+    private int frames = 0;
+    private int[] keyFrames = new int[16];
+    private long[] keyOffsets = new long[16];
+    private int keyCount = 0;
+    // state as of the previous frame
+    private final int[] qx, qy, kills;
+    private final boolean[] alive;
+    private int[] scratch = new int[0];
+
+    public ReplayWriter(File file, Simulator sim, int keyframeInterval) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.n = sim.players.size();
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.qx = new int[n]; this.qy = new int[n]; this.kills = new int[n];
+        this.alive = new boolean[n];
+        out.fixedInt(MAGIC).fixedInt(VERSION).fixedInt(n).fixedInt(sim.canvasW).fixedInt(sim.canvasH)
+           .fixedInt(QUANT).fixedInt(this.keyframeInterval);
+        for (int i = 0; i < n; i++) out.fixedInt(Float.floatToIntBits(sim.players.activity[i]));
+    }
+
+    public int frameCount() { return frames; }
+
+    // Append the simulator's current state as the next frame.
+    public void writeFrame(Simulator sim) throws IOException {
+        PlayerStore ps = sim.players;
+        boolean key = frames % keyframeInterval == 0;
+        if (key) {
+            if (keyCount == keyFrames.length) {
+                keyFrames = Arrays.copyOf(keyFrames, keyCount * 2);
+                keyOffsets = Arrays.copyOf(keyOffsets, keyCount * 2);
+            }
+            keyFrames[keyCount] = frames;
+            keyOffsets[keyCount++] = flushed + out.len;
+        }
+        out.put(key ? KEYFRAME : DELTA);
+        out.varint(sim.tick).varint(sim.round);
+        double zx = sim.adaptiveLeft != null ? sim.adaptiveLeft.x : sim.canvasW / 2.0;
+        double zy = sim.adaptiveLeft != null ? sim.adaptiveLeft.y : sim.canvasH / 2.0;
+        out.zigzag(quant(zx)).zigzag(quant(zy));
+        out.zigzag(quant(sim.roundRadii[Math.min(sim.round, sim.roundRadii.length - 1)]));
+
+        if (key) {
+            for (int b = 0; b < n; b += 8) {
+                int bits = 0;
+                for (int k = 0; k < 8 && b + k < n; k++) if (ps.isAlive(b + k)) bits |= 1 << k;
+                out.put(bits);
+            }
+            for (int i = 0; i < n; i++) {
+                alive[i] = ps.isAlive(i);
+                kills[i] = ps.kills[i];
+                if (!alive[i]) continue;
+                qx[i] = quant(ps.x[i]); qy[i] = quant(ps.y[i]);
+                out.zigzag(qx[i]).zigzag(qy[i]).varint(kills[i]);
+            }
+        } else {
+            if (scratch.length < n) scratch = new int[n];
+            // deaths since the previous frame
+            int c = 0;
+            for (int i = 0; i < n; i++) if (alive[i] && !ps.isAlive(i)) { scratch[c++] = i; alive[i] = false; }
+            writeIdGaps(c);
+            // kill count increases (players may have died in the same tick)
+            c = 0;
+            for (int i = 0; i < n; i++) if (ps.kills[i] != kills[i]) scratch[c++] = i;
+            out.varint(c);
+            for (int k = 0, prev = -1; k < c; k++) {
+                int i = scratch[k];
+                out.varint(i - prev - 1).varint(ps.kills[i] - kills[i]);
+                kills[i] = ps.kills[i];
+                prev = i;
+            }
+            for (int i = 0; i < n; i++) {
+                if (!alive[i]) continue;
+                int nx = quant(ps.x[i]), ny = quant(ps.y[i]);
+                out.zigzag(nx - qx[i]).zigzag(ny - qy[i]);
+                qx[i] = nx; qy[i] = ny;
+            }
+        }
+        frames++;
+        if (out.len >= (1 << 20)) flushSink();
+    }
+
+    private void writeIdGaps(int c) {
+        out.varint(c);
+        for (int k = 0, prev = -1; k < c; k++) { out.varint(scratch[k] - prev - 1); prev = scratch[k]; }
+    }
+
+    // Write the keyframe index and footer, then close the file.
+    @Override public void close() throws IOException {
+        long indexOffset = flushed + out.len;
+        out.varint(keyCount);
+        for (int k = 0; k < keyCount; k++) out.varint(keyFrames[k]).fixedLong(keyOffsets[k]);
+        out.fixedLong(indexOffset).fixedInt(INDEX_MAGIC);
+        flushSink();
+        channel.close();
+    }
+
+    private void flushSink() throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(out.buf, 0, out.len);
+        while (b.hasRemaining()) channel.write(b);
+        flushed += out.len;
+        out.len = 0;
+    }
+
+    static int quant(double v) { return (int) Math.round(v * QUANT); }
+
+    // Growable byte buffer with varint helpers.
+    private static final class ByteSink {
+        byte[] buf = new byte[1 << 16];
+        int len = 0;
+
+        ByteSink put(int b) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+            buf[len++] = (byte) b;
+            return this;
+        }
+        ByteSink varint(long v) {
+            while ((v & ~0x7FL) != 0) { put((int) ((v & 0x7F) | 0x80)); v >>>= 7; }
+            return put((int) v);
+        }
+        ByteSink zigzag(int v) { return varint(((v << 1) ^ (v >> 31)) & 0xFFFFFFFFL); }
+        ByteSink fixedInt(int v) { return put(v >>> 24).put(v >>> 16).put(v >>> 8).put(v); }
+        ByteSink fixedLong(long v) { return fixedInt((int) (v >>> 32)).fixedInt((int) v); }
+    }
+}
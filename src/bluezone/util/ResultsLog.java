@@ -0,0 +1,151 @@
+package bluezone.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Append-only, rotating log of newline-terminated records (one JSON run per
+ * line). Callers hand over fully encoded records; a single background
+ * thread batches them into a direct buffer and writes through a
+ * FileChannel, so recording never blocks the simulation on disk I/O unless
+ * the queue is full: at most 4096 records or MAX_QUEUED_BYTES, whichever
+ * comes first, so a burst of very large records cannot pile up in memory.
+ *
+ * Files are named `runs-<start time>-<pid>-<part>.ndjson` and a new part is
+ * started once the current one reaches `maxFileBytes`.
+ */
+public class ResultsLog implements AutoCloseable {
+    private static final DateTimeFormatter NAME_TF = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final byte[] POISON = new byte[0];
+    // bytes of queued records after which append blocks; a larger record waits for an empty queue
+    static final long MAX_QUEUED_BYTES = 64L << 20;
+
+    public final File dir;
+    private final long maxFileBytes;
+    private final String namePrefix;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread writer;
+    private final Object progress = new Object();
+    private long enqueued = 0;   // guarded by progress
+    private long written = 0;    // guarded by progress
+    private long queuedBytes = 0; // guarded by progress
+    private volatile boolean closed = false;
+    private FileChannel channel;
+    private int part = 0;
+    private volatile IOException failure;
+
+    public ResultsLog(File dir, long maxFileBytes) {
+        this.dir = dir;
+        this.maxFileBytes = maxFileBytes;
+        this.namePrefix = "runs-" + NAME_TF.format(LocalDateTime.now()) + "-" + ProcessHandle.current().pid();
+        this.queue = new ArrayBlockingQueue<>(4096);
+        this.writer = new Thread(this::drain, "results-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue one record (without trailing newline) for writing. Copies
+     * `len` bytes of `data`, so the caller may reuse its buffer.
+     */
+    public void append(byte[] data, int len) {
+        if (closed) throw new IllegalStateException("results log is closed");
+        // reserve room in the byte budget before copying, so waiting writers hold no copies
+        synchronized (progress) {
+            while (queuedBytes > 0 && queuedBytes + len + 1 > MAX_QUEUED_BYTES && writer.isAlive()) {
+                try { progress.wait(100); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); return; }
+            }
+            queuedBytes += len + 1;
+            enqueued++;
+        }
+        byte[] rec = new byte[len + 1];
+        System.arraycopy(data, 0, rec, 0, len);
+        rec[len] = '\n';
+        try {
+            queue.put(rec);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            synchronized (progress) { enqueued--; queuedBytes -= rec.length; progress.notifyAll(); }
+        }
+    }
+
+    // Block until every record appended so far has been written to the file.
+    public void flush() {
+        synchronized (progress) {
+            while (written < enqueued && writer.isAlive()) {
+                try { progress.wait(100); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); return; }
+            }
+        }
+        if (failure != null) System.err.println("Results log write failed: " + failure.getMessage());
+    }
+
+    // Flush, stop the writer thread and close the current file.
+    @Override public void close() {
+        if (closed) return;
+        flush();
+        closed = true;
+        try {
+            queue.put(POISON);
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        ByteBuffer out = ByteBuffer.allocateDirect(1 << 20);
+        try {
+            boolean stop = false;
+            while (!stop) {
+                int batch = 0;
+                long batchBytes = 0;
+                // take whatever is queued right now and write it as one batch
+                for (byte[] rec = queue.take(); rec != null; rec = queue.poll()) {
+                    if (rec == POISON) { stop = true; break; }
+                    if (rec.length > out.remaining()) flushBuffer(out);
+                    if (rec.length > out.capacity()) writeFully(ByteBuffer.wrap(rec));
+                    else out.put(rec);
+                    batch++;
+                    batchBytes += rec.length;
+                }
+                flushBuffer(out);
+                synchronized (progress) { written += batch; queuedBytes -= batchBytes; progress.notifyAll(); }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try { if (channel != null) channel.close(); } catch (IOException ignored) { }
+            synchronized (progress) { progress.notifyAll(); }
+        }
+    }
+
+    private void flushBuffer(ByteBuffer out) {
+        out.flip();
+        if (out.hasRemaining()) writeFully(out);
+        out.clear();
+    }
+
+    // Write all remaining bytes of `buf`, then rotate the file if it grew too large.
+    private void writeFully(ByteBuffer buf) {
+        try {
+            if (channel == null) openNext();
+            while (buf.hasRemaining()) channel.write(buf);
+            if (channel.size() >= maxFileBytes) { channel.close(); channel = null; }
+        } catch (IOException ex) {
+            failure = ex;
+        }
+    }
+
+    private void openNext() throws IOException {
+        if (!dir.exists()) dir.mkdirs();
+        File f = new File(dir, String.format("%s-%03d.ndjson", namePrefix, part++));
+        channel = FileChannel.open(f.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -1,91 +1,120 @@
 package bluezone.util;
 
 import bluezone.contoller.Simulator;
-import bluezone.model.Player;
+import bluezone.contoller.SimulatorMetrics;
+import bluezone.model.PlayerStore;
 import bluezone.util.SimulationStats.Stats;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.time.Instant;
-import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Locale;
 
+/**
+ * Records finished runs as one JSON object per line (NDJSON) in a shared,
+ * rotating ResultsLog under `outputDir`. Encoding happens on the calling
+ * thread into a per-thread buffer; file I/O happens on the log's writer
+ * thread. Call `flush()` before reading the files back in-process.
+ */
 public class ResultsRecorder {
     private static final DateTimeFormatter TF = DateTimeFormatter.ISO_INSTANT;
+    // run logs are rotated once they reach this size
+    private static final long MAX_LOG_BYTES = 64L << 20;
+    // directory run logs are written to; benchmarks point this somewhere disposable
+    public static volatile File outputDir = new File("results");
 
-    public static void recordRun(Simulator sim, List<Integer> playersInZoneHistory, List<Integer> deathsOutsideHistory, int countdownSeconds) {
-        String ts = TF.format(Instant.now().atZone(ZoneOffset.UTC));
-        String mode = sim.randomMode ? "random" : "adaptive";
-        File dir = new File("results");
-        if (!dir.exists()) dir.mkdirs();
-        String filename = String.format("results/run-%s.json", ts.replaceAll("[:\\\\/\\s]","-"));
+    // per-thread encoder; one that grew past MAX_ENCODER_BYTES for a huge lobby is dropped after that record
+    private static final int MAX_ENCODER_BYTES = 1 << 20;
+    private static final ThreadLocal<JsonWriter> ENCODER = ThreadLocal.withInitial(() -> new JsonWriter(1 << 16));
+    private static ResultsLog log;
 
-        StringBuilder sb = new StringBuilder();
-        sb.append('{').append('\n');
-        sb.append("  \"timestamp\": \"").append(escape(ts)).append("\",\n");
-        sb.append("  \"mode\": \"").append(mode).append("\",\n");
-        sb.append("  \"rounds\": ").append(sim.round).append(",\n");
-        sb.append("  \"maxRounds\": ").append(sim.maxRounds).append(",\n");
-        sb.append("  \"winnerLeftId\": ").append(sim.winnerLeftId).append(",\n");
-        sb.append("  \"countdownRemaining\": ").append(countdownSeconds).append(",\n");
+    // Record a finished run; returns its stats (null if they could not be computed) for in-process aggregation.
+    public static Stats recordRun(Simulator sim, List<Integer> playersInZoneHistory, List<Integer> deathsOutsideHistory, int countdownSeconds) {
+        JsonWriter w = ENCODER.get().reset();
+        Stats stats = encodeRun(w, sim, playersInZoneHistory, deathsOutsideHistory, countdownSeconds);
+        try {
+            log().append(w.array(), w.length());
+        } finally {
+            if (w.array().length > MAX_ENCODER_BYTES) ENCODER.remove();
+        }
+        // this game is on record; its metrics move to the process-wide totals
+        if (SimulatorMetrics.ENABLED) sim.metrics.flushToGlobal();
+        return stats;
+    }
+
+    // Block until every run recorded so far is on disk.
+    public static void flush() {
+        ResultsLog l;
+        synchronized (ResultsRecorder.class) { l = log; }
+        if (l != null) l.flush();
+    }
+
+    // The shared log for the current `outputDir`, (re)opened on first use or after the directory changed.
+    private static synchronized ResultsLog log() {
+        File dir = outputDir;
+        if (log == null || !log.dir.equals(dir)) {
+            if (log != null) log.close();
+            else Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronized (ResultsRecorder.class) { if (log != null) log.close(); }
+            }, "results-log-shutdown"));
+            log = new ResultsLog(dir, MAX_LOG_BYTES);
+        }
+        return log;
+    }
+
+    // Encode one run as a single-line JSON object; returns the stats written under "metrics" (null on failure).
+    public static Stats encodeRun(JsonWriter w, Simulator sim, List<Integer> playersInZoneHistory, List<Integer> deathsOutsideHistory, int countdownSeconds) {
+        String ts = TF.format(Instant.now());
+        w.raw('{');
+        w.key("timestamp").string(ts).raw(',');
+        w.key("mode").string(sim.randomMode ? "random" : "adaptive").raw(',');
+        // with the config and player count, the seed is enough to replay the game
+        w.key("seed").number(sim.seed).raw(',');
+        w.key("rng").string(sim.config.counterRng ? "counter" : "sequential").raw(',');
+        w.key("rounds").number(sim.round).raw(',');
+        w.key("maxRounds").number(sim.maxRounds).raw(',');
+        w.key("winnerLeftId").number(sim.winnerLeftId).raw(',');
+        w.key("countdownRemaining").number(countdownSeconds).raw(',');
 
         // players
-        sb.append("  \"players\": [\n");
-        for (int i = 0; i < sim.players.size(); i++) {
-            Player p = sim.players.get(i);
-            sb.append("    {");
-            sb.append("\"id\":").append(p.id).append(",");
-            sb.append("\"alive\":").append(p.alive).append(",");
-            sb.append("\"kills\":").append(p.kills).append(",");
-            sb.append("\"distance\":").append(p.distance).append(",");
-            sb.append("\"x\":").append(String.format(Locale.ROOT, "%.2f", p.x)).append(",");
-            sb.append("\"y\":").append(String.format(Locale.ROOT, "%.2f", p.y)).append(",");
-            sb.append("\"activity\":").append(String.format(Locale.ROOT, "%.4f", p.activity));
-            sb.append("}");
-            if (i < sim.players.size() - 1) sb.append(',');
-            sb.append('\n');
+        w.key("players").raw('[');
+        PlayerStore ps = sim.players;
+        for (int i = 0; i < ps.size(); i++) {
+            if (i > 0) w.raw(',');
+            w.raw('{');
+            w.key("id").number(i).raw(',');
+            w.key("alive").bool(ps.isAlive(i)).raw(',');
+            w.key("kills").number(ps.kills[i]).raw(',');
+            w.key("distance").number(ps.distance[i]).raw(',');
+            w.key("x").fixed(ps.x[i], 2).raw(',');
+            w.key("y").fixed(ps.y[i], 2).raw(',');
+            w.key("activity").fixed(ps.activity[i], 4);
+            w.raw('}');
         }
-        sb.append("  ],\n");
+        w.raw("],");
 
         // histories
-        sb.append("  \"playersInZoneHistory\": ");
-        sb.append(listToJsonArray(playersInZoneHistory)).append(",\n");
-        sb.append("  \"deathsOutsideHistory\": ");
-        sb.append(listToJsonArray(deathsOutsideHistory)).append(",\n");
+        w.key("playersInZoneHistory").intArray(playersInZoneHistory).raw(',');
+        w.key("deathsOutsideHistory").intArray(deathsOutsideHistory).raw(',');
 
         // metrics
+        w.key("metrics");
+        int mark = w.length();
+        Stats stats = null;
         try {
-            Stats stats = SimulationStats.computeMetrics(sim, playersInZoneHistory, deathsOutsideHistory, countdownSeconds);
-            sb.append("  \"metrics\": ");
-            sb.append(stats.toJson()).append('\n');
+            stats = SimulationStats.computeMetrics(sim, playersInZoneHistory, deathsOutsideHistory, countdownSeconds);
+            stats.writeJson(w);
         } catch (Exception ex) {
-            sb.append("  \"metrics\": {}\n");
-        }
-
-        sb.append('}').append('\n');
-
-        try (FileWriter fw = new FileWriter(filename)) {
-            fw.write(sb.toString());
-        } catch (IOException ex) {
-            System.err.println("Failed to write results to " + filename + ": " + ex.getMessage());
+            // drop anything partially written and keep the record valid
+            w.truncate(mark).raw("{}");
+            stats = null;
         }
-    }
-
-    private static String listToJsonArray(List<Integer> l) {
-        StringBuilder b = new StringBuilder();
-        b.append('[');
-        for (int i = 0; i < l.size(); i++) {
-            b.append(l.get(i));
-            if (i < l.size() - 1) b.append(',');
+        // hot-path timings and event counters, absent when instrumentation is switched off
+        if (SimulatorMetrics.ENABLED) {
+            w.raw(',').key("instrumentation");
+            sim.metrics.writeJson(w);
         }
-        b.append(']');
-        return b.toString();
-    }
-
-    private static String escape(String s) {
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+        w.raw('}');
+        return stats;
     }
 }
@@ -0,0 +1,62 @@
+package bluezone.util;
+
+/**
+ * Streaming count, mean, variance, min and max of a series of values
+ * (Welford's update), in constant space. Two instances merge exactly as if
+ * every value had been added to one, so per-thread or per-run accumulators
+ * can be combined at the end without keeping the values around.
+ */
+public class RunningStats {
+    private long count = 0;
+    private double mean = 0, m2 = 0;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+
+    public void add(double v) {
+        count++;
+        double d = v - mean;
+        mean += d / count;
+        m2 += d * (v - mean);
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    // Combine with `o` (Chan et al. pairwise update).
+    public void merge(RunningStats o) {
+        if (o.count == 0) return;
+        if (count == 0) { count = o.count; mean = o.mean; m2 = o.m2; min = o.min; max = o.max; return; }
+        long n = count + o.count;
+        double d = o.mean - mean;
+        mean += d * o.count / n;
+        m2 += o.m2 + d * d * ((double) count * o.count / n);
+        count = n;
+        if (o.min < min) min = o.min;
+        if (o.max > max) max = o.max;
+    }
+
+    public void clear() {
+        count = 0;
+        mean = m2 = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public long count() { return count; }
+    public double mean() { return mean; }
+    // population variance; 0 with fewer than two values
+    public double variance() { return count > 1 ? m2 / count : 0; }
+    public double sampleVariance() { return count > 1 ? m2 / (count - 1) : 0; }
+    public double stddev() { return Math.sqrt(sampleVariance()); }
+    public double min() { return count > 0 ? min : 0; }
+    public double max() { return count > 0 ? max : 0; }
+
+    // Append {"n":..,"mean":..,"sd":..,"min":..,"max":..}.
+    public void writeJson(JsonWriter w) {
+        w.raw('{');
+        w.key("n").number(count).raw(',');
+        w.key("mean").fixed(mean(), 4).raw(',');
+        w.key("sd").fixed(stddev(), 4).raw(',');
+        w.key("min").fixed(min(), 4).raw(',');
+        w.key("max").fixed(max(), 4);
+        w.raw('}');
+    }
+}
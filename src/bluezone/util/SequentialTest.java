@@ -0,0 +1,158 @@
+package bluezone.util;
+
+import bluezone.util.SimulationStats.Stats;
+
+/**
+ * Sequential paired comparison of two arms (A and B) on chosen Stats
+ * fields. Each observation is one game of each arm played on the same
+ * seed; the test tracks the per-pair difference A - B of every metric
+ * and, at each look, a normal confidence interval for its mean.
+ *
+ * A metric is resolved once its interval excludes 0 (one arm is higher)
+ * or, if a tolerance is set for it, once the whole interval lies within
+ * ±tolerance (the arms are equivalent for practical purposes). Resolved
+ * metrics keep their verdict. The error rate `alpha` is split evenly over
+ * every metric and every look the budget allows (Bonferroni), so stopping
+ * at the first look where everything is resolved keeps the overall chance
+ * of any wrong verdict below `alpha`, however often the test peeks.
+ */
+public class SequentialTest {
+    public enum Verdict { UNRESOLVED, A_HIGHER, B_HIGHER, EQUIVALENT }
+
+    public final int[] metrics;
+    public final double[] tolerance;
+    public final double alpha;
+    public final int maxLooks;
+    // two-sided critical value for alpha / (2 * metrics * maxLooks)
+    public final double z;
+
+    public final RunningStats[] a, b, diff;
+    public final Verdict[] verdict;
+    // interval of each metric at its last look (frozen once resolved)
+    public final double[] lo, hi;
+    // pairs seen when each metric was resolved, 0 while unresolved
+    public final long[] resolvedAt;
+    public long pairs = 0;
+    public int looks = 0;
+
+    /**
+     * `metrics` are Stats field indices; `tolerance[m]` <= 0 means metric m
+     * can only be resolved by a difference. `maxLooks` is how many looks
+     * the budget allows at most.
+     */
+    public SequentialTest(int[] metrics, double[] tolerance, double alpha, int maxLooks) {
+        if (metrics.length == 0) throw new IllegalArgumentException("no metrics to compare");
+        this.metrics = metrics.clone();
+        this.tolerance = tolerance.clone();
+        this.alpha = alpha;
+        this.maxLooks = Math.max(1, maxLooks);
+        this.z = inverseNormal(1 - alpha / (2.0 * metrics.length * this.maxLooks));
+        int m = metrics.length;
+        a = new RunningStats[m]; b = new RunningStats[m]; diff = new RunningStats[m];
+        for (int i = 0; i < m; i++) { a[i] = new RunningStats(); b[i] = new RunningStats(); diff[i] = new RunningStats(); }
+        verdict = new Verdict[m];
+        java.util.Arrays.fill(verdict, Verdict.UNRESOLVED);
+        lo = new double[m]; hi = new double[m];
+        resolvedAt = new long[m];
+    }
+
+    // Add the results of one seed played by both arms.
+    public void add(Stats sa, Stats sb) {
+        pairs++;
+        for (int i = 0; i < metrics.length; i++) {
+            double va = sa.get(metrics[i]), vb = sb.get(metrics[i]);
+            a[i].add(va);
+            b[i].add(vb);
+            diff[i].add(va - vb);
+        }
+    }
+
+    /**
+     * Recompute the intervals of unresolved metrics and resolve what can
+     * be resolved. Returns true when every metric is resolved. Looks past
+     * `maxLooks` are refused (the error budget is spent).
+     */
+    public boolean look() {
+        if (looks >= maxLooks) return isDone();
+        looks++;
+        for (int i = 0; i < metrics.length; i++) {
+            if (verdict[i] != Verdict.UNRESOLVED || diff[i].count() < 2) continue;
+            double mean = diff[i].mean();
+            double half = z * Math.sqrt(diff[i].sampleVariance() / diff[i].count());
+            lo[i] = mean - half;
+            hi[i] = mean + half;
+            Verdict v = Verdict.UNRESOLVED;
+            if (lo[i] > 0) v = Verdict.A_HIGHER;
+            else if (hi[i] < 0) v = Verdict.B_HIGHER;
+            else if (tolerance[i] > 0 && lo[i] >= -tolerance[i] && hi[i] <= tolerance[i]) v = Verdict.EQUIVALENT;
+            // identical arms (zero variance, zero mean) are equivalent at any tolerance
+            else if (half == 0 && mean == 0) v = Verdict.EQUIVALENT;
+            if (v != Verdict.UNRESOLVED) { verdict[i] = v; resolvedAt[i] = pairs; }
+        }
+        return isDone();
+    }
+
+    public boolean isDone() {
+        for (Verdict v : verdict) if (v == Verdict.UNRESOLVED) return false;
+        return true;
+    }
+
+    // Append {"pairs":..,"looks":..,"alpha":..,"z":..,"metrics":{"<field>":{..},..}} with names `labelA` / `labelB` for the arms.
+    public JsonWriter writeJson(JsonWriter w, String labelA, String labelB) {
+        w.raw('{');
+        w.key("pairs").number(pairs).raw(',');
+        w.key("looks").number(looks).raw(',');
+        w.key("alpha").fixed(alpha, 4).raw(',');
+        w.key("z").fixed(z, 4).raw(',');
+        w.key("metrics").raw('{');
+        for (int i = 0; i < metrics.length; i++) {
+            if (i > 0) w.raw(',');
+            w.key(Stats.FIELDS[metrics[i]]).raw('{');
+            w.key(labelA).fixed(a[i].mean(), 4).raw(',');
+            w.key(labelB).fixed(b[i].mean(), 4).raw(',');
+            w.key("difference").fixed(diff[i].mean(), 4).raw(',');
+            w.key("ciLow").fixed(lo[i], 4).raw(',');
+            w.key("ciHigh").fixed(hi[i], 4).raw(',');
+            w.key("tolerance").fixed(Math.max(0, tolerance[i]), 4).raw(',');
+            w.key("verdict").string(verdictName(verdict[i], labelA, labelB)).raw(',');
+            w.key("resolvedAtPairs").number(resolvedAt[i]);
+            w.raw('}');
+        }
+        return w.raw("}}");
+    }
+
+    public static String verdictName(Verdict v, String labelA, String labelB) {
+        switch (v) {
+            case A_HIGHER: return labelA + "Higher";
+            case B_HIGHER: return labelB + "Higher";
+            case EQUIVALENT: return "equivalent";
+            default: return "unresolved";
+        }
+    }
+
+    /**
+     * Quantile function of the standard normal distribution (Acklam's
+     * rational approximation, relative error below 1.2e-9), for 0 < p < 1.
+     */
+    static double inverseNormal(double p) {
+        if (p <= 0 || p >= 1) throw new IllegalArgumentException("p must be in (0, 1): " + p);
+        final double[] ca = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                              1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] cb = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                              6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] cc = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                             -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] cd = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                             3.754408661907416e+00};
+        final double low = 0.02425;
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((cc[0]*q + cc[1])*q + cc[2])*q + cc[3])*q + cc[4])*q + cc[5]) /
+                   ((((cd[0]*q + cd[1])*q + cd[2])*q + cd[3])*q + 1);
+        }
+        if (p > 1 - low) return -inverseNormal(1 - p);
+        double q = p - 0.5, r = q * q;
+        return (((((ca[0]*r + ca[1])*r + ca[2])*r + ca[3])*r + ca[4])*r + ca[5]) * q /
+               (((((cb[0]*r + cb[1])*r + cb[2])*r + cb[3])*r + cb[4])*r + 1);
+    }
+}
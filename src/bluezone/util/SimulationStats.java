@@ -1,13 +1,19 @@
 package bluezone.util;
 
 import bluezone.contoller.Simulator;
-import bluezone.model.Player;
+import bluezone.contoller.ZoneMembership;
+import bluezone.model.PlayerStore;
 
 import java.util.List;
-import java.util.Locale;
 
 public class SimulationStats {
     public static class Stats {
+        // numeric fields in JSON order, addressable by index through get()
+        public static final String[] FIELDS = {
+            "avgDistanceToCenter", "aliveCount", "avgKills", "killVariance",
+            "avgActivity", "winnerKills", "roundsPlayed", "eliminationsPerRound"
+        };
+
         public double avgDistanceToCenter;
         public int aliveCount;
     public double avgKills;
@@ -17,51 +23,165 @@ public class SimulationStats {
         public int roundsPlayed;
         public double eliminationsPerRound;
 
+        public double get(int field) {
+            switch (field) {
+                case 0: return avgDistanceToCenter;
+                case 1: return aliveCount;
+                case 2: return avgKills;
+                case 3: return killVariance;
+                case 4: return avgActivity;
+                case 5: return winnerKills;
+                case 6: return roundsPlayed;
+                case 7: return eliminationsPerRound;
+                default: throw new IndexOutOfBoundsException("no stats field " + field);
+            }
+        }
+
+        // Index of the field called `name` in FIELDS.
+        public static int field(String name) {
+            for (int f = 0; f < FIELDS.length; f++) if (FIELDS[f].equals(name)) return f;
+            throw new IllegalArgumentException("unknown stats field " + name + ", expected one of " + java.util.Arrays.toString(FIELDS));
+        }
+
+        public String toJson() {
+            return writeJson(new JsonWriter(256)).toString();
+        }
+
+        // Append this object as JSON to `w`.
+        public JsonWriter writeJson(JsonWriter w) {
+            w.raw('{');
+            w.key("avgDistanceToCenter").fixed(avgDistanceToCenter, 4).raw(',');
+            w.key("aliveCount").number(aliveCount).raw(',');
+            w.key("avgKills").fixed(avgKills, 4).raw(',');
+            w.key("killVariance").fixed(killVariance, 4).raw(',');
+            w.key("avgActivity").fixed(avgActivity, 4).raw(',');
+            w.key("winnerKills").number(winnerKills).raw(',');
+            w.key("roundsPlayed").number(roundsPlayed).raw(',');
+            w.key("eliminationsPerRound").fixed(eliminationsPerRound, 4);
+            return w.raw('}');
+        }
+    }
+
+    /**
+     * Running totals of the current game, kept up to date by the Simulator
+     * as players spawn and score kills. They make computeMetrics O(alive)
+     * instead of two passes over every player. Activity never changes after
+     * spawning, and kill moments are exact integers.
+     */
+    public static class Tally {
+        public int players;
+        public long killSum, killSquares;
+        public double activitySum;
+
+        public void start(int players) {
+            this.players = players;
+            killSum = killSquares = 0;
+            activitySum = 0;
+        }
+
+        public void spawn(int kills, float activity) {
+            killSum += kills;
+            killSquares += (long) kills * kills;
+            activitySum += activity;
+        }
+
+        // a player with `killsBefore` kills scored one more
+        public void kill(int killsBefore) {
+            killSum++;
+            killSquares += 2L * killsBefore + 1;
+        }
+    }
+
+    /**
+     * Distribution of every Stats field over many games: mean, spread,
+     * range (RunningStats) and quantiles (QuantileSketch). Summaries built
+     * on different threads or from different batches merge into the same
+     * result as one built from all the games, so large batches are
+     * summarised in-process without rereading their records. Not thread
+     * safe; give each thread its own and merge at the end.
+     */
+    public static class Summary {
+        static final String[] FIELDS = Stats.FIELDS;
+
+        public long games;
+        // entry `f` summarises field FIELDS[f]
+        final RunningStats[] moments = new RunningStats[FIELDS.length];
+        final QuantileSketch[] sketches = new QuantileSketch[FIELDS.length];
+
+        public Summary() {
+            for (int f = 0; f < FIELDS.length; f++) {
+                moments[f] = new RunningStats();
+                sketches[f] = new QuantileSketch();
+            }
+        }
+
+        public void add(Stats s) {
+            games++;
+            for (int f = 0; f < FIELDS.length; f++) {
+                double v = s.get(f);
+                moments[f].add(v);
+                sketches[f].add(v);
+            }
+        }
+
+        public void merge(Summary o) {
+            games += o.games;
+            for (int f = 0; f < FIELDS.length; f++) {
+                moments[f].merge(o.moments[f]);
+                sketches[f].merge(o.sketches[f]);
+            }
+        }
+
+        public void clear() {
+            games = 0;
+            for (int f = 0; f < FIELDS.length; f++) {
+                moments[f].clear();
+                sketches[f].clear();
+            }
+        }
+
+        public RunningStats moments(String field) { return moments[Stats.field(field)]; }
+        public QuantileSketch quantiles(String field) { return sketches[Stats.field(field)]; }
+
         public String toJson() {
-            StringBuilder sb = new StringBuilder();
-            sb.append('{');
-            sb.append(String.format(Locale.ROOT, "\"avgDistanceToCenter\": %.4f,", avgDistanceToCenter));
-            sb.append(String.format(Locale.ROOT, "\"aliveCount\": %d,", aliveCount));
-            sb.append(String.format(Locale.ROOT, "\"avgKills\": %.4f,", avgKills));
-            sb.append(String.format(Locale.ROOT, "\"killVariance\": %.4f,", killVariance));
-            sb.append(String.format(Locale.ROOT, "\"avgActivity\": %.4f,", avgActivity));
-            sb.append(String.format(Locale.ROOT, "\"winnerKills\": %d,", winnerKills));
-            sb.append(String.format(Locale.ROOT, "\"roundsPlayed\": %d,", roundsPlayed));
-            sb.append(String.format(Locale.ROOT, "\"eliminationsPerRound\": %.4f", eliminationsPerRound));
-            sb.append('}');
-            return sb.toString();
+            return writeJson(new JsonWriter(2048)).toString();
+        }
+
+        // Append {"games":..,"<field>":{"moments":{..},"quantiles":{..}},..}.
+        public JsonWriter writeJson(JsonWriter w) {
+            w.raw('{');
+            w.key("games").number(games);
+            for (int f = 0; f < FIELDS.length; f++) {
+                w.raw(',').key(FIELDS[f]).raw('{');
+                w.key("moments");
+                moments[f].writeJson(w);
+                w.raw(',').key("quantiles");
+                sketches[f].writeJson(w);
+                w.raw('}');
+            }
+            return w.raw('}');
         }
     }
 
     public static Stats computeMetrics(Simulator sim, List<Integer> playersInZoneHistory, List<Integer> deathsOutsideHistory, int countdownSeconds) {
         Stats s = new Stats();
-        List<Player> players = sim.players;
+        PlayerStore players = sim.players;
+        Tally tally = sim.tally;
         int total = players.size();
-        double sumDist = 0; int alive = 0; double sumKills = 0; double sumActivity = 0;
-        // compute distance to current adaptive zone center (or canvas center if missing)
-        double centerX = sim.adaptiveLeft != null ? sim.adaptiveLeft.x : sim.canvasW / 2.0;
-        double centerY = sim.adaptiveLeft != null ? sim.adaptiveLeft.y : sim.canvasH / 2.0;
-        for (Player p : players) {
-            if (p.alive) {
-                double dx = p.x - centerX;
-                double dy = p.y - centerY;
-                sumDist += Math.hypot(dx, dy);
-                alive++;
-            }
-            sumKills += p.kills;
-            sumActivity += p.activity;
-        }
+        // distance to current adaptive zone center (or canvas center if missing), as classified by the simulator this tick
+        ZoneMembership zone = sim.membership;
+        double sumDist = 0;
+        int alive = players.countAlive();
+        int[] aliveIds = players.aliveIds();
+        for (int k = 0; k < alive; k++) sumDist += zone.distance(aliveIds[k]);
         s.aliveCount = alive;
         s.avgDistanceToCenter = alive > 0 ? sumDist / alive : 0.0;
-    s.avgKills = total > 0 ? sumKills / total : 0.0;
-        // variance of kills
-        double meanKills = s.avgKills;
-        double var = 0;
-        for (Player p : players) { var += (p.kills - meanKills) * (p.kills - meanKills); }
-        s.killVariance = total > 0 ? var / total : 0.0;
-        s.avgActivity = total > 0 ? sumActivity / total : 0.0;
-        Player winner = null; for (Player p : players) if (p.id == sim.winnerLeftId) { winner = p; break; }
-        s.winnerKills = winner != null ? winner.kills : 0;
+        s.avgKills = total > 0 ? (double) tally.killSum / total : 0.0;
+        // population variance of kills from the exact integer moments
+        s.killVariance = total > 0 ? Math.max(0.0, ((double) tally.killSquares * total - (double) tally.killSum * tally.killSum) / ((double) total * total)) : 0.0;
+        s.avgActivity = total > 0 ? tally.activitySum / total : 0.0;
+        int winner = sim.winnerLeftId;
+        s.winnerKills = winner >= 0 && winner < total ? players.kills[winner] : 0;
         s.roundsPlayed = sim.round;
         s.eliminationsPerRound = s.roundsPlayed > 0 ? (double)(total - s.aliveCount) / s.roundsPlayed : 0.0;
         return s;
@@ -0,0 +1,121 @@
+package bluezone.util;
+
+/**
+ * Uniform-grid spatial hash over a fixed rectangle. Items are bucketed by
+ * cell with a counting sort, so a rebuild is O(n + cells) and never
+ * allocates once the internal arrays have grown to the working size.
+ * Item ids are opaque ints; coordinates are looked up as `xs[id]`/`ys[id]`.
+ */
+public class SpatialGrid {
+    public final double cellSize;
+    public final int cols, rows;
+    private final int[] cellStart; // cellStart[c]..cellStart[c+1] indexes into items
+    private int[] items = new int[0];
+    private int[] itemCell = new int[0];
+    private int[] identity = new int[0];
+    private int size = 0;
+
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cellStart = new int[cols * rows + 1];
+    }
+
+    /**
+     * Rebuild the grid from the first `n` entries of `ids`. Positions are
+     * read from `xs`/`ys` indexed by id.
+     */
+    public void build(int n, int[] ids, double[] xs, double[] ys) {
+        if (items.length < n) { items = new int[n]; itemCell = new int[n]; }
+        java.util.Arrays.fill(cellStart, 0);
+        for (int i = 0; i < n; i++) {
+            int id = ids[i];
+            int c = cellIndex(cellX(xs[id]), cellY(ys[id]));
+            itemCell[i] = c;
+            cellStart[c + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) cellStart[c + 1] += cellStart[c];
+        // place items; cellStart[c] is used as a cursor and restored afterwards
+        for (int i = 0; i < n; i++) {
+            int c = itemCell[i];
+            items[cellStart[c]++] = ids[i];
+        }
+        for (int c = cols * rows; c > 0; c--) cellStart[c] = cellStart[c - 1];
+        cellStart[0] = 0;
+        size = n;
+    }
+
+    // Rebuild the grid from items 0..n-1 at (xs[i], ys[i]).
+    public void build(int n, double[] xs, double[] ys) {
+        if (identity.length < n) {
+            int old = identity.length;
+            identity = java.util.Arrays.copyOf(identity, Math.max(n, old * 2));
+            for (int i = old; i < identity.length; i++) identity[i] = i;
+        }
+        build(n, identity, xs, ys);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Id of the item closest to (x, y) that is strictly within `maxDist`,
+     * or -1 if there is none. Ties go to the lower id. Only the cells
+     * overlapping the search circle's bounding box are visited.
+     */
+    public int nearest(double x, double y, double maxDist, double[] xs, double[] ys) {
+        int cx0 = cellX(x - maxDist), cx1 = cellX(x + maxDist);
+        int cy0 = cellY(y - maxDist), cy1 = cellY(y + maxDist);
+        double best = maxDist * maxDist;
+        int bestId = -1;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int c = cellIndex(cx, cy);
+                for (int k = cellStart[c], end = cellStart[c + 1]; k < end; k++) {
+                    int id = items[k];
+                    double dx = xs[id] - x, dy = ys[id] - y;
+                    double d2 = dx * dx + dy * dy;
+                    if (d2 < best || (d2 == best && bestId >= 0 && id < bestId)) { best = d2; bestId = id; }
+                }
+            }
+        }
+        return bestId;
+    }
+
+    /**
+     * Write the ids of all items inside the rectangle [x0, x1] x [y0, y1]
+     * (in any corner order) to `out`, which must hold at least size()
+     * entries, and return how many were written. Order is by cell.
+     */
+    public int query(double x0, double y0, double x1, double y1, double[] xs, double[] ys, int[] out) {
+        double minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+        double minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+        int cx0 = cellX(minX), cx1 = cellX(maxX), cy0 = cellY(minY), cy1 = cellY(maxY);
+        int n = 0;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int c = cellIndex(cx, cy);
+                // interior cells lie entirely inside the rectangle and need no per-item test
+                boolean inner = cx > cx0 && cx < cx1 && cy > cy0 && cy < cy1;
+                for (int k = cellStart[c], end = cellStart[c + 1]; k < end; k++) {
+                    int id = items[k];
+                    if (inner) { out[n++] = id; continue; }
+                    double px = xs[id], py = ys[id];
+                    if (px >= minX && px <= maxX && py >= minY && py <= maxY) out[n++] = id;
+                }
+            }
+        }
+        return n;
+    }
+
+    public int cellX(double x) { return clampInt((int) Math.floor(x / cellSize), 0, cols - 1); }
+    public int cellY(double y) { return clampInt((int) Math.floor(y / cellSize), 0, rows - 1); }
+    public int cellIndex(int cx, int cy) { return cy * cols + cx; }
+
+    // Range of `item(k)` indices belonging to a cell: [cellStart(c), cellEnd(c)).
+    public int cellStart(int cell) { return cellStart[cell]; }
+    public int cellEnd(int cell) { return cellStart[cell + 1]; }
+    public int item(int k) { return items[k]; }
+
+    private static int clampInt(int v, int a, int b) { return v < a ? a : (v > b ? b : v); }
+}
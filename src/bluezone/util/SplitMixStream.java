@@ -0,0 +1,29 @@
+package bluezone.util;
+
+/**
+ * Small, unsynchronised SplitMix64 generator. Cheap to reseed, so a single
+ * instance can hand out an independent stream per player: seed it from
+ * (tick seed, player id) and draw from it for that player only.
+ */
+public final class SplitMixStream {
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private long state;
+
+    // Start the stream identified by (`seed`, `key`), e.g. a per-tick seed and a player id.
+    public void seed(long seed, long key) { state = mix(seed ^ mix(key * GOLDEN + GOLDEN)); }
+
+    public long nextLong() { return mix(state += GOLDEN); }
+
+    // Uniform double in [0, 1).
+    public double nextDouble() { return (nextLong() >>> 11) * 0x1.0p-53; }
+
+    // Uniform double in [a, b).
+    public double next(double a, double b) { return a + nextDouble() * (b - a); }
+
+    // SplitMix64 / Stafford variant 13 finaliser.
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
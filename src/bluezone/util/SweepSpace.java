@@ -0,0 +1,100 @@
+package bluezone.util;
+
+import bluezone.contoller.SimulationConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A box of SimulationConfig knobs to explore, each varied over [lo, hi],
+ * and the two ways of picking configs from it: a full grid with `steps`
+ * values per knob, or a Latin-hypercube sample where each knob's range is
+ * cut into `samples` strata and every stratum is used exactly once. All
+ * other knobs keep the values of the base config.
+ */
+public class SweepSpace {
+    public static class Dimension {
+        public final String knob;
+        public final double lo, hi;
+        // grid values per knob (ignored by Latin-hypercube sampling)
+        public final int steps;
+
+        Dimension(String knob, double lo, double hi, int steps) {
+            this.knob = knob; this.lo = lo; this.hi = hi; this.steps = steps;
+        }
+
+        double gridValue(int k) { return steps == 1 ? lo : lo + (hi - lo) * k / (steps - 1); }
+    }
+
+    // One config of the sweep and the knob values that produced it (in dimension order).
+    public static class Point {
+        public final int index;
+        public final double[] values;
+        public final SimulationConfig config;
+
+        Point(int index, double[] values, SimulationConfig config) {
+            this.index = index; this.values = values; this.config = config;
+        }
+    }
+
+    public final SimulationConfig base;
+    public final List<Dimension> dimensions = new ArrayList<>();
+    // points whose knob combination did not pass SimulationConfig validation
+    public int skipped = 0;
+
+    public SweepSpace(SimulationConfig base) { this.base = base; }
+
+    public SweepSpace add(String knob, double lo, double hi, int steps) {
+        // fail early on unknown names
+        base.toBuilder().set(knob, lo);
+        if (steps < 1) throw new IllegalArgumentException("steps must be at least 1 for " + knob);
+        dimensions.add(new Dimension(knob, lo, hi, steps));
+        return this;
+    }
+
+    // Every combination of the dimensions' grid values; the first dimension varies slowest.
+    public List<Point> grid() {
+        List<Point> out = new ArrayList<>();
+        int d = dimensions.size();
+        int[] k = new int[d];
+        while (true) {
+            double[] v = new double[d];
+            for (int j = 0; j < d; j++) v[j] = dimensions.get(j).gridValue(k[j]);
+            addPoint(out, v);
+            int j = d - 1;
+            while (j >= 0 && ++k[j] == dimensions.get(j).steps) k[j--] = 0;
+            if (j < 0) return out;
+        }
+    }
+
+    // `samples` points, each knob's strata assigned by an independent permutation drawn from `seed`.
+    public List<Point> latinHypercube(int samples, long seed) {
+        Random rnd = new Random(seed);
+        int d = dimensions.size();
+        double[][] v = new double[samples][d];
+        int[] perm = new int[samples];
+        for (int j = 0; j < d; j++) {
+            Dimension dim = dimensions.get(j);
+            for (int i = 0; i < samples; i++) perm[i] = i;
+            for (int i = samples; i > 1; i--) {
+                int r = rnd.nextInt(i);
+                int t = perm[i - 1]; perm[i - 1] = perm[r]; perm[r] = t;
+            }
+            for (int i = 0; i < samples; i++) v[i][j] = dim.lo + (dim.hi - dim.lo) * (perm[i] + rnd.nextDouble()) / samples;
+        }
+        List<Point> out = new ArrayList<>(samples);
+        for (int i = 0; i < samples; i++) addPoint(out, v[i]);
+        return out;
+    }
+
+    private void addPoint(List<Point> out, double[] values) {
+        SimulationConfig.Builder b = base.toBuilder();
+        for (int j = 0; j < values.length; j++) b.set(dimensions.get(j).knob, values[j]);
+        try {
+            out.add(new Point(out.size(), values, b.build()));
+        } catch (IllegalArgumentException ex) {
+            skipped++;
+        }
+    }
+}
@@ -6,25 +6,46 @@ import javax.swing.*;
 import java.awt.*;
 
 public class BlueZoneFrame extends JFrame {
+    private static final long serialVersionUID = 1L;
     private final BlueZonePanel panel;
 
     public BlueZoneFrame(Simulator sim){
+        this(sim, 30);
+    }
+
+    // A frame whose first game has `players` players.
+    public BlueZoneFrame(Simulator sim, int players){
         // Title reflects whether the simulator is running adaptive or random mode
         setTitle(sim.randomMode ? "Random - BlueZone" : "Adaptive - BlueZone");
     setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
     setLocationRelativeTo(null);
 
-    panel = new BlueZonePanel(sim);
+    panel = new BlueZonePanel(sim, players);
 
         JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
         top.add(new JLabel("Players:"));
-        SpinnerNumberModel model = new SpinnerNumberModel(30, 4, 200, 1);
+        SpinnerNumberModel model = new SpinnerNumberModel(Math.max(4, players), 4, 1_000_000, 1);
         JSpinner spinner = new JSpinner(model);
         top.add(spinner);
         JButton resetBtn = new JButton("Reset");
         JButton roundBtn = new JButton("Advance Round");
         top.add(resetBtn);
         top.add(roundBtn);
+        JButton fitBtn = new JButton("Fit");
+        fitBtn.setToolTipText("Show the whole map (wheel zooms, right-drag pans)");
+        fitBtn.addActionListener(e -> panel.fitView());
+        top.add(fitBtn);
+        // simulation speed: ticks per 30 ms frame ("Max" runs as fast as the CPU allows)
+        JComboBox<String> speed = new JComboBox<>(new String[]{"1x", "2x", "4x", "16x", "64x", "Max"});
+        speed.addActionListener(e -> {
+            String v = (String) speed.getSelectedItem();
+            panel.setSpeed(v.equals("Max") ? 0 : Integer.parseInt(v.substring(0, v.length() - 1)));
+        });
+        top.add(speed);
+        JCheckBox oddsBox = new JCheckBox("Win odds");
+        oddsBox.setToolTipText("Estimate every player's chance to win from rollouts of the current game");
+        oddsBox.addActionListener(e -> panel.setShowWinOdds(oddsBox.isSelected()));
+        top.add(oddsBox);
         JLabel roundLabel = new JLabel("Round: 0");
         top.add(roundLabel);
         top.add(Box.createHorizontalStrut(16));
@@ -33,17 +54,67 @@ public class BlueZoneFrame extends JFrame {
         top.add(Box.createHorizontalStrut(16));
         JLabel hover = new JLabel("Hover over a player");
         top.add(hover);
+
+        // replay recording and playback
+        JPanel bottom = new JPanel(new BorderLayout());
+        JPanel replayButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JCheckBox recordBox = new JCheckBox("Record replay");
+        recordBox.setToolTipText("Record the next games (after Reset) to results/replay-*.bzr");
+        JButton openReplayBtn = new JButton("Open replay…");
+        replayButtons.add(recordBox);
+        replayButtons.add(openReplayBtn);
+        JButton openHeatmapBtn = new JButton("Open heatmap…");
+        openHeatmapBtn.setToolTipText("Overlay a heatmap written by BatchRunner (results/heatmap-*.bzh)");
+        JComboBox<String> heatLayer = new JComboBox<>();
+        heatLayer.addItem("No heatmap");
+        for (String name : bluezone.util.Heatmap.LAYER_NAMES) heatLayer.addItem(name);
+        heatLayer.setEnabled(false);
+        replayButtons.add(openHeatmapBtn);
+        replayButtons.add(heatLayer);
+        JSlider scrub = new JSlider(0, 0, 0);
+        scrub.setEnabled(false);
+        bottom.add(replayButtons, BorderLayout.WEST);
+        bottom.add(scrub, BorderLayout.CENTER);
+        recordBox.addActionListener(e -> panel.setRecordReplays(recordBox.isSelected()));
+        scrub.addChangeListener(e -> panel.setReplayFrame(scrub.getValue()));
+        openReplayBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(new java.io.File("results"));
+            chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("BlueZone replays (*.bzr)", "bzr"));
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            try {
+                panel.openReplay(chooser.getSelectedFile());
+            } catch (java.io.IOException ex) {
+                JOptionPane.showMessageDialog(this, "Could not open replay: " + ex.getMessage(), "Replay", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            scrub.setMaximum(Math.max(0, panel.getReplayFrameCount() - 1));
+            scrub.setValue(0);
+            scrub.setEnabled(true);
+            roundBtn.setEnabled(false);
+        });
+        openHeatmapBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(new java.io.File("results"));
+            chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("BlueZone heatmaps (*.bzh)", "bzh"));
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            try {
+                panel.openHeatmap(chooser.getSelectedFile());
+            } catch (java.io.IOException ex) {
+                JOptionPane.showMessageDialog(this, "Could not open heatmap: " + ex.getMessage(), "Heatmap", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            heatLayer.setEnabled(true);
+            if (heatLayer.getSelectedIndex() == 0) heatLayer.setSelectedIndex(1 + bluezone.util.Heatmap.OCCUPANCY);
+            heatLayer.setToolTipText(panel.getHeatmap().games + " games");
+        });
+        heatLayer.addActionListener(e -> panel.setHeatmapLayer(heatLayer.getSelectedIndex() - 1));
         resetBtn.addActionListener(e -> {
             int count = (Integer) spinner.getValue();
             panel.reset(count);
-            panel.resetCountdown();
-            roundLabel.setText("Round: 0");
             roundBtn.setEnabled(true);
             spinner.setEnabled(true);
-            panel.startCountdown();
-            panel.updateCountdownLabel();
+            scrub.setEnabled(false);
         });
-        roundBtn.addActionListener(e -> { panel.advanceByOneStep(); roundLabel.setText("Round: " + panel.getRound()); if(panel.isFinished()){ roundBtn.setEnabled(false); spinner.setEnabled(false); } });
+        roundBtn.addActionListener(e -> { panel.advanceByOneStep(); if(panel.isFinished()){ roundBtn.setEnabled(false); spinner.setEnabled(false); } });
 
     panel.setHoverLabel(hover);
     panel.setRoundLabel(roundLabel);
@@ -52,6 +123,7 @@ public class BlueZoneFrame extends JFrame {
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(top, BorderLayout.NORTH);
         getContentPane().add(panel, BorderLayout.CENTER);
+        getContentPane().add(bottom, BorderLayout.SOUTH);
         pack();
     }
 }
@@ -1,200 +1,648 @@
 package bluezone.view;
 
+import bluezone.contoller.Match;
+import bluezone.contoller.RolloutService;
+import bluezone.contoller.SimState;
+import bluezone.contoller.SimulationLoop;
 import bluezone.contoller.Simulator;
+import bluezone.model.FrameSnapshot;
 import bluezone.model.Player;
+import bluezone.model.PlayerStore;
+import bluezone.util.Heatmap;
+import bluezone.util.ReplayReader;
+import bluezone.util.ReplayWriter;
+import bluezone.util.SpatialGrid;
 
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.event.MouseMotionListener;
 
+/**
+ * Live view of a game, or of a recorded replay. The world (the
+ * simulator's canvasW x canvasH map) is shown through a Camera: the wheel
+ * zooms around the cursor, dragging with the right or middle button pans,
+ * and a left drag selects. Only the players in view are copied from the
+ * simulation; when there are more of them than are worth drawing, the
+ * view shows per-tile player density instead of markers, so a frame
+ * costs about the same whether the world holds a hundred players or a
+ * million.
+ */
 public class BlueZonePanel extends JPanel implements MouseMotionListener {
+    private static final long serialVersionUID = 1L;
     private final Simulator sim;
+    // runs the game off the EDT; everything below reads its published snapshots
+    private final SimulationLoop loop;
+    // polls for new snapshots and repaints; the simulation itself never touches Swing
+    private final Timer frameTimer;
+    private long shownSeq = -1;
     private JLabel hoverLabel = null;
-    private final Timer animTimer;
-    private Timer countdownTimer;
-    private int countdownSeconds = 60;
-    private int lastMultipleTriggered = -1;
     private JLabel roundLabel = null;
     private JLabel countdownLabel = null;
-    // live metric histories
-    private java.util.List<Integer> playersInZoneHistory = new java.util.ArrayList<>();
-    private java.util.List<Integer> deathsOutsideHistory = new java.util.ArrayList<>();
     // single adaptive map only
+    // when true, each game started by reset() is recorded to results/replay-<time>.bzr
+    private volatile boolean recordReplays = false;
+    // non-null while showing a recorded replay instead of the live simulation
+    private ReplayReader playback = null;
+    // heatmap overlay: the loaded heatmap and the layer drawn (-1 for none); EDT only
+    private Heatmap heat = null;
+    private int heatLayer = -1;
+
+    // rendering resources, created once and reused every frame
+    private static final Color BACKGROUND = new Color(27,43,58);
+    private static final Color OUTSIDE_WORLD = new Color(11,18,32);
+    private static final Color ZONE_FILL = new Color(59,130,246,32);
+    private static final Color ZONE_STROKE = new Color(59,130,246,100);
+    // heatmap cells by opacity, 0..HEAT_ALPHA
+    private static final int HEAT_ALPHA = 200;
+    private static final Color[] HEAT_RAMP = new Color[HEAT_ALPHA + 1];
+    static { for (int a = 0; a <= HEAT_ALPHA; a++) HEAT_RAMP[a] = new Color(249, 115, 22, a); }
+    private static final BasicStroke ZONE_STROKE_WIDTH = new BasicStroke(2f);
+    private static final Font LABEL_FONT = new Font("Segoe UI", Font.PLAIN, 14);
+    private static final Font SMALL_FONT = new Font("Segoe UI", Font.PLAIN, 12);
+    private final PlayerSprites sprites = new PlayerSprites();
+    // background plus zone, re-rendered only when the panel size or the zone changes
+    private BufferedImage backdrop;
+    private double backdropX, backdropY, backdropR, backdropCamX, backdropCamY, backdropZoom;
+    // frame being composed: backdrop copy plus sprites, then blitted in one call
+    private BufferedImage frame;
+    private Graphics2D frameGraphics;
+    private final FrameStats frameStats = new FrameStats();
+    private boolean showFrameStats = true;
+
+    // world-to-screen mapping; EDT only
+    private final Camera camera;
+    private Point panStart = null;
+    // density view: tile size in pixels; switch to it beyond one drawn marker per PIXELS_PER_MARKER pixels
+    private static final int TILE = 4;
+    private static final int PIXELS_PER_MARKER = 16;
+    // how far (pixels) a marker reaches from its centre: players this close outside the view are still drawn
+    private static final int MARKER_REACH = PlayerSprites.radius(PlayerSprites.MAX_KILLS) + 4;
+    // screen x of each density tile edge, reused across frames
+    private int[] tileEdges = new int[0];
+
+    // hover radius in pixels
+    private static final double HOVER_RADIUS = 12;
+    private static final Color SELECTION = new Color(207,232,255,160);
+    // spatial index (world units) over the players on screen, rebuilt lazily when the shown frame changes
+    private final SpatialGrid hoverGrid;
+    private Object hoverSource = null;
+    private long hoverKey = -1;
+    private int[] hoverScratch = new int[0];
+    // drag selection in panel coordinates; null when nothing is selected
+    private Rectangle selection = null;
+    private Point dragStart = null;
+
+    // win odds overlay: Monte Carlo rollouts from snapshots of the live game, refreshed as each estimate completes
+    private static final int ODDS_ROLLOUTS = 4000;
+    private static final long ODDS_BUDGET_NANOS = 500_000_000L;
+    private static final int ODDS_LEADERS = 5;
+    private static final Color ODDS_COLOR = new Color(250,204,21);
+    private boolean showWinOdds = false;
+    private RolloutService rollouts;
+    private RolloutService.Estimate winOdds;
+    // EDT-only: an estimate is running / the tick it was requested at / bumped on reset so late results of the old game are dropped
+    private boolean oddsPending = false;
+    private long oddsTick = -1;
+    private int oddsGame = 0;
 
     public BlueZonePanel(Simulator sim){
+        this(sim, 30);
+    }
+
+    // A panel whose first game has `players` players.
+    public BlueZonePanel(Simulator sim, int players){
         this.sim = sim;
-        setPreferredSize(new Dimension(sim.canvasW, sim.canvasH));
-        setBackground(new Color(11,18,32));
+        camera = new Camera(sim.canvasW, sim.canvasH);
+        // the world at 1:1 when it fits a typical screen, scaled down to fit one otherwise
+        double fit = Math.min(1, Math.min(1200.0 / sim.canvasW, 800.0 / sim.canvasH));
+        setPreferredSize(new Dimension((int) Math.round(sim.canvasW * fit), (int) Math.round(sim.canvasH * fit)));
+        setBackground(OUTSIDE_WORLD);
         addMouseMotionListener(this);
-        sim.reset(30);
-    // always use 6 rounds (game length fixed). The game may finish earlier per Simulator rules.
-    sim.maxRounds = 6;
-        animTimer = new Timer(30, e -> {
-            // animation tick: advance animation and repaint
-            sim.stepAnimation();
-            repaint();
-            // if only one (or zero) player remains, finish and announce immediately
-            long aliveNow = sim.players.stream().filter(p->p.alive).count();
-            if (aliveNow <= 1 && !sim.isFinished()) {
-                // stop countdown if running
-                if (countdownTimer != null && countdownTimer.isRunning()) countdownTimer.stop();
-                // compute final winners and mark finished
-                sim.finishGame();
-                updateRoundLabel();
-                // show dialog on EDT (we are already on EDT via Swing Timer)
-                showWinner();
-                // stop this animation timer to prevent repeated dialogs
-                ((Timer) e.getSource()).stop();
-                return;
-            }
-        });
-
-        // create countdown after animTimer so the anim tick can safely reference it
-        countdownTimer = new Timer(1000, e -> {
-            if(sim.isFinished()) { countdownTimer.stop(); return; }
-            countdownSeconds = Math.max(0, countdownSeconds - 1);
-            updateCountdownLabel();
-            if(countdownSeconds == 0){
-                // countdown ended -> finish game and stop
-                countdownTimer.stop();
-                // ensure maxRounds is fixed to 6 on countdown end
-                sim.maxRounds = 6;
-                sim.finishGame();
-                updateRoundLabel();
-                showWinner();
-                return;
+        addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override public void mousePressed(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e)) { panStart = e.getPoint(); return; }
+                dragStart = e.getPoint(); selection = null; repaint();
             }
-            if(countdownSeconds % 10 == 0 && countdownSeconds != lastMultipleTriggered){
-                lastMultipleTriggered = countdownSeconds;
-                doAdvanceRound();
+            @Override public void mouseReleased(MouseEvent e) {
+                panStart = null;
+                dragStart = null;
+                if (selection != null && (selection.width < 2 || selection.height < 2)) selection = null;
+                repaint();
             }
         });
-        countdownTimer.start();
-        // start anim timer last to avoid it running before countdownTimer is assigned
-        animTimer.start();
+        addMouseWheelListener(e -> {
+            camera.zoomAt(e.getX(), e.getY(), Math.pow(1.25, -e.getPreciseWheelRotation()));
+            viewChanged();
+        });
+        // cells of a few hover radii at the closest zoom, but no finer than a 1024 x 1024 grid over the world
+        hoverGrid = new SpatialGrid(sim.canvasW, sim.canvasH, Math.max(HOVER_RADIUS, Math.max(sim.canvasW, sim.canvasH) / 1024.0));
+        loop = new SimulationLoop(new Match(sim));
+        loop.setListener(this::gameOver);
+        // always use 6 rounds (game length fixed). The game may finish earlier per Simulator rules.
+        loop.restart(players);
+        loop.start();
+        frameTimer = new Timer((int) SimulationLoop.FRAME_MS, e -> {
+            if (playback != null) return;
+            FrameSnapshot s = loop.latest();
+            requestWinOdds(s);
+            if (s.seq == shownSeq) return;
+            shownSeq = s.seq;
+            updateRoundLabel(s.round);
+            updateCountdownLabel(s.countdownSeconds);
+            repaint();
+        });
+        frameTimer.start();
+    }
+
+    @Override public void removeNotify(){
+        super.removeNotify();
+        frameTimer.stop();
+        loop.stop();
+        if (rollouts != null) rollouts.close();
     }
 
     public void setHoverLabel(JLabel l){ this.hoverLabel = l; }
 
-    public void setRoundLabel(JLabel l){ this.roundLabel = l; updateRoundLabel(); }
-    public void setCountdownLabel(JLabel l){ this.countdownLabel = l; updateCountdownLabel(); }
+    public void setRoundLabel(JLabel l){ this.roundLabel = l; updateRoundLabel(loop.latest().round); }
+    public void setCountdownLabel(JLabel l){ this.countdownLabel = l; updateCountdownLabel(loop.latest().countdownSeconds); }
 
-    // control countdown externally
-    public void resetCountdown(){ this.countdownSeconds = 60; this.lastMultipleTriggered = -1; updateCountdownLabel(); }
-    public void startCountdown(){ if(countdownTimer != null && !countdownTimer.isRunning()) countdownTimer.start(); }
-    public void stopCountdown(){ if(countdownTimer != null && countdownTimer.isRunning()) countdownTimer.stop(); }
-    public void updateCountdownLabel(){ if(countdownLabel != null) countdownLabel.setText("Countdown: " + countdownSeconds + "s"); }
-    public int getCountdownSeconds(){ return countdownSeconds; }
+    // pause / resume the game (countdown and animation together)
+    public void startCountdown(){ loop.setPaused(false); }
+    public void stopCountdown(){ loop.setPaused(true); }
+    private void updateCountdownLabel(int seconds){ if(countdownLabel != null) countdownLabel.setText("Countdown: " + seconds + "s"); }
+    public int getCountdownSeconds(){ return loop.latest().countdownSeconds; }
 
-    public int getRound(){ return sim.round; }
-    public boolean isFinished(){ return sim.isFinished(); }
+    // Ticks per 30 ms frame; 1 is real time, 0 runs as fast as the CPU allows.
+    public void setSpeed(int ticksPerFrame){ loop.setSpeed(ticksPerFrame); }
+    public long getTicksRun(){ return loop.ticksRun(); }
+
+    public int getRound(){ return loop.latest().round; }
+    public boolean isFinished(){ return loop.latest().finished; }
 
     public void reset(int count){
-        sim.reset(count);
-    sim.maxRounds = 6;
-        // restart countdown
-        resetCountdown();
-        startCountdown();
-        updateRoundLabel();
-    }
-    public void advanceRound(){ 
-        sim.advanceRound(); 
-        // record live metrics after advancing
-        double currentRadius = sim.roundRadii[Math.min(sim.round, sim.roundRadii.length-1)];
-        int inZone = 0, outside = 0;
-        for (Player p : sim.players) {
-            if (!p.alive) continue;
-            double d = Math.hypot(p.x - (sim.adaptiveLeft != null ? sim.adaptiveLeft.x : sim.canvasW/2.0), p.y - (sim.adaptiveLeft != null ? sim.adaptiveLeft.y : sim.canvasH/2.0));
-            if (d <= currentRadius) inZone++; else outside++;
-        }
-        playersInZoneHistory.add(inZone);
-        deathsOutsideHistory.add(outside);
-        if(sim.isFinished()){ showWinner(); } 
-        updateRoundLabel(); 
+        closePlayback();
+        oddsGame++;
+        winOdds = null;
+        oddsTick = -1;
+        loop.submit(this::stopRecording);
+        loop.restart(count);
+        loop.submit(() -> { if (recordReplays) startRecording(); });
+        loop.setPaused(false);
     }
 
     public void advanceByOneStep(){
-        if(sim.isFinished()) return;
-        countdownSeconds = Math.max(0, countdownSeconds - 10);
-        // prevent immediate double-trigger
-        lastMultipleTriggered = countdownSeconds;
-        updateCountdownLabel();
-        doAdvanceRound();
+        loop.submit(loop.match::skipRound);
     }
 
-    private void doAdvanceRound(){
-        sim.advanceRound();
-        updateRoundLabel();
-        if(sim.isFinished()){
-            countdownTimer.stop();
-            showWinner();
-        }
+    // Show the whole world again.
+    public void fitView(){
+        camera.fit();
+        viewChanged();
     }
 
-    private void updateRoundLabel(){ if(roundLabel != null) roundLabel.setText("Round: " + sim.round); }
+    /**
+     * Tell the simulation what is on screen after a pan, zoom or resize:
+     * the world rectangle under the panel cut into TILE-pixel tiles, and
+     * how many players are worth drawing as markers at this size.
+     */
+    private void viewChanged(){
+        Camera c = camera;
+        int cols = (c.width + TILE - 1) / TILE, rows = (c.height + TILE - 1) / TILE;
+        loop.setView(new SimulationLoop.View(c.toWorldX(0), c.toWorldY(0), c.toWorldX(cols * TILE), c.toWorldY(rows * TILE),
+                MARKER_REACH / c.zoom, cols, rows, Math.max(1000, c.width * c.height / PIXELS_PER_MARKER)));
+        repaint();
+    }
+
+    private void updateRoundLabel(int round){ if(roundLabel != null) roundLabel.setText("Round: " + round); }
     
 
-    private void showWinner(){
+    public void setRecordReplays(boolean on){ this.recordReplays = on; }
+
+    // Recording runs on the loop thread, between ticks.
+    private void startRecording(){
+        File file = new File("results", "replay-" + new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date()) + ".bzr");
+        try {
+            sim.replay = new ReplayWriter(file, sim, 64);
+            sim.replay.writeFrame(sim);
+        } catch (IOException ex) {
+            System.err.println("Failed to start replay: " + ex.getMessage());
+            sim.replay = null;
+        }
+    }
+
+    private void stopRecording(){
+        if (sim.replay == null) return;
+        try { sim.replay.close(); } catch (IOException ex) { System.err.println("Failed to finish replay: " + ex.getMessage()); }
+        sim.replay = null;
+    }
+
+    // Switch to playback of a recorded replay; the live game stays paused until the next reset().
+    public void openReplay(File file) throws IOException {
+        ReplayReader r = new ReplayReader(file);
+        loop.setPaused(true);
+        loop.submit(this::stopRecording);
+        closePlayback();
+        playback = r;
+        playback.seek(0);
+        updateRoundLabel(playback.round);
+        repaint();
+    }
+
+    // Load a heatmap (as written by BatchRunner) to overlay; nothing is drawn until a layer is chosen.
+    public void openHeatmap(File file) throws IOException {
+        heat = Heatmap.read(file);
+        backdropR = Double.NaN;
+        repaint();
+    }
+
+    public Heatmap getHeatmap(){ return heat; }
+
+    // Overlay Heatmap layer `layer` (e.g. Heatmap.KILLS), or nothing for -1.
+    public void setHeatmapLayer(int layer){
+        heatLayer = layer;
+        backdropR = Double.NaN;
+        repaint();
+    }
+
+    public boolean isPlayback(){ return playback != null; }
+    public int getReplayFrameCount(){ return playback != null ? playback.frameCount() : 0; }
+
+    public void setReplayFrame(int frame){
+        if (playback == null) return;
+        playback.seek(frame);
+        updateRoundLabel(playback.round);
+        repaint();
+    }
+
+    private void closePlayback(){
+        if (playback == null) return;
+        try { playback.close(); } catch (IOException ignored) { }
+        playback = null;
+        shownSeq = -1;
+    }
+
+    // Called on the loop thread when a game ends: summarise and record it there, then show the dialog on the EDT.
+    private void gameOver(Match match){
+        stopRecording();
     // Show the adaptive zone winner and stats
-        double currentRadius = sim.roundRadii[Math.min(sim.round, sim.roundRadii.length-1)];
         StringBuilder sb = new StringBuilder();
     sb.append(sim.randomMode ? "Random zone:\n" : "Adaptive zone:\n");
     if(sim.adaptiveLeft != null){
-            int inLeft = 0;
-            for(Player p : sim.players) if(p.alive && dist(p.x, p.y, sim.adaptiveLeft.x, sim.adaptiveLeft.y) <= currentRadius) inLeft++;
-            sb.append(String.format("Players inside: %d\n", inLeft));
+            PlayerStore ps = sim.players;
+            sb.append(String.format("Players inside: %d\n", sim.membership.inside));
             int leftId = sim.winnerLeftId;
-            if(leftId >= 0){ Player p = null; for(Player pp : sim.players) if(pp.id == leftId) p = pp; if(p != null) sb.append(String.format("Winner: Player %d — kills: %d, dist: %d, activity: %.2f\n", p.id, p.kills, p.distance, p.activity)); else sb.append("Winner: (unknown)\n"); }
+            if(leftId >= 0){ Player p = leftId < ps.size() ? ps.get(leftId) : null; if(p != null) sb.append(String.format("Winner: Player %d — kills: %d, dist: %d, activity: %.2f\n", p.id, p.kills, p.distance, p.activity)); else sb.append("Winner: (unknown)\n"); }
             else sb.append("Winner: (none)\n");
         } else sb.append("No adaptive zone data.\n");
-        JOptionPane.showMessageDialog(this, sb.toString(), "Zone Winner / Stats", JOptionPane.INFORMATION_MESSAGE);
         try {
-            bluezone.util.ResultsRecorder.recordRun(sim, playersInZoneHistory, deathsOutsideHistory, countdownSeconds);
+            bluezone.util.ResultsRecorder.recordRun(sim, match.playersInZoneHistory, match.deathsOutsideHistory, match.getCountdownSeconds());
         } catch (Exception ex) {
             System.err.println("Failed to record run: " + ex.getMessage());
         }
+        String message = sb.toString();
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, message, "Zone Winner / Stats", JOptionPane.INFORMATION_MESSAGE));
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long start = System.nanoTime();
+        // the frame image covers every pixel, so the default background fill is skipped
         Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        int canvasW = getWidth(), canvasH = getHeight();
-        g2.setColor(new Color(27,43,58));
-        g2.fillRect(0,0,canvasW,canvasH);
-
-    double currentRadius = sim.roundRadii[Math.min(sim.round, sim.roundRadii.length-1)];
-    if(sim.adaptiveLeft != null){ drawZone(g2, sim.adaptiveLeft.x, sim.adaptiveLeft.y, (int)currentRadius, new Color(59,130,246,32), new Color(59,130,246,100)); }
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int canvasW = Math.max(1, getWidth()), canvasH = Math.max(1, getHeight());
+        if (playback != null) { paintReplay(g2, canvasW, canvasH); finishFrame(g2, canvasW, start); return; }
 
-    g2.setColor(new Color(207,232,255)); g2.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-    // draw zone labels and per-zone alive counts
-    int inLeft = 0;
-    for(Player p : sim.players){ if(!p.alive) continue; if(Math.hypot(p.x - sim.adaptiveLeft.x, p.y - sim.adaptiveLeft.y) <= currentRadius) inLeft++; }
-    g2.drawString("Player inside: " + inLeft, 10, 20);
+    if (camera.resize(canvasW, canvasH)) viewChanged();
+    FrameSnapshot s = loop.latest();
+    int[] pixels = beginFrame(canvasW, canvasH, s.zoneX, s.zoneY, s.hasZone ? s.zoneRadius : -1);
 
-    for(Player p : sim.players){ if(!p.alive) continue; drawPlayer(g2, p.x, p.y, p); }
+    // draw the players in view, or their density when there are too many; the inside count comes with the snapshot
+    int aliveCount = s.aliveCount;
+    if (s.dense) paintDensity(pixels, canvasW, canvasH, s);
+    else {
+        Camera cam = camera;
+        int shown = s.shown;
+        boolean compact = PlayerSprites.useCompact(shown, canvasW, canvasH);
+        for(int k = 0; k < shown; k++){
+            double px = cam.toScreenX(s.x[k]), py = cam.toScreenY(s.y[k]);
+            if (compact) sprites.drawCompact(pixels, canvasW, canvasH, px, py, s.activity[k]);
+            else sprites.draw(pixels, canvasW, canvasH, frameGraphics, px, py, s.kills[k], s.activity[k]);
+        }
+    }
+    g2.drawImage(frame, 0, 0, null);
 
-        g2.setColor(new Color(207,232,255)); g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-    g2.drawString("Round: " + sim.round + " / " + sim.maxRounds, canvasW - 140, canvasH - 28);
-    long aliveCount = sim.players.stream().filter(p->p.alive).count();
+    g2.setColor(PlayerSprites.BODY); g2.setFont(LABEL_FONT);
+    g2.drawString("Player inside: " + s.insideCount, 10, 20);
+    g2.setFont(SMALL_FONT);
+    g2.drawString("Round: " + s.round + " / " + s.maxRounds, canvasW - 140, canvasH - 28);
     g2.drawString("Alive: " + aliveCount, canvasW - 140, canvasH - 10);
+    if (showWinOdds) paintWinOdds(g2, s);
 
+        finishFrame(g2, canvasW, start);
+    }
+
+    private void finishFrame(Graphics2D g2, int canvasW, long start){
+        if (selection != null) {
+            g2.setColor(SELECTION);
+            g2.drawRect(selection.x, selection.y, selection.width, selection.height);
+        }
+        if (showFrameStats && frameStats.frames() > 0) {
+            g2.setColor(PlayerSprites.BODY); g2.setFont(SMALL_FONT);
+            g2.drawString(frameStats.toString(), canvasW - 320, 20);
+        }
         g2.dispose();
+        frameStats.record(start, System.nanoTime() - start);
+    }
+
+    // Show each favourite's chance to win, estimated from rollouts of the live game. The rollout threads start on first use.
+    public void setShowWinOdds(boolean on){
+        if (on && rollouts == null) rollouts = new RolloutService(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        showWinOdds = on;
+        if (!on) { winOdds = null; oddsTick = -1; }
+        repaint();
+    }
+
+    /**
+     * Start a new estimate unless one is running or the game has not moved
+     * since the last one. The snapshot is taken on the loop thread between
+     * ticks; the result comes back to the EDT.
+     */
+    private void requestWinOdds(FrameSnapshot s){
+        if (!showWinOdds || oddsPending || playback != null || s.finished || s.tick == oddsTick) return;
+        oddsPending = true;
+        oddsTick = s.tick;
+        int game = oddsGame;
+        RolloutService service = rollouts;
+        loop.submit(() -> {
+            SimState state = loop.match.snapshot();
+            service.submit(state, ODDS_ROLLOUTS, state.tick, ODDS_BUDGET_NANOS).whenComplete((est, ex) -> SwingUtilities.invokeLater(() -> {
+                oddsPending = false;
+                if (ex != null) System.err.println("Win odds failed: " + ex);
+                else if (game == oddsGame && showWinOdds) { winOdds = est; repaint(); }
+            }));
+        });
+    }
+
+    // List the favourites top left and ring them where they are now.
+    private void paintWinOdds(Graphics2D g2, FrameSnapshot s){
+        RolloutService.Estimate e = winOdds;
+        g2.setFont(SMALL_FONT); g2.setColor(ODDS_COLOR);
+        if (e == null) { g2.drawString("Win odds: estimating…", 10, 40); return; }
+        int[] leaders = e.leaders(ODDS_LEADERS);
+        g2.drawString(String.format("Win odds at tick %d (%d rollouts)", e.tick, e.rollouts), 10, 40);
+        for (int j = 0; j < leaders.length; j++) {
+            int id = leaders[j];
+            g2.drawString(String.format("Player %d: %.0f%% ±%.0f", id, 100 * e.winProbability(id), 100 * e.standardError(id)), 10, 56 + 14 * j);
+        }
+        for (int k = 0; k < s.shown; k++) {
+            int id = s.ids[k];
+            for (int leader : leaders) {
+                if (leader != id) continue;
+                int px = (int) camera.toScreenX(s.x[k]), py = (int) camera.toScreenY(s.y[k]);
+                g2.drawOval(px - 8, py - 8, 16, 16);
+                g2.drawString(String.format("%.0f%%", 100 * e.winProbability(id)), px + 10, py - 6);
+            }
+        }
+    }
+
+    public FrameStats getFrameStats(){ return frameStats; }
+    public void setShowFrameStats(boolean on){ this.showFrameStats = on; repaint(); }
+
+    /**
+     * Start a frame: copy the cached background and zone into the frame
+     * image and return its pixels for the sprites to be composited into.
+     * The zone is given in world units (radius < 0 for none). The backdrop
+     * itself is re-rendered only when the size, zone or camera changed.
+     */
+    private int[] beginFrame(int w, int h, double zx, double zy, double r){
+        if (frame == null || frame.getWidth() != w || frame.getHeight() != h) {
+            if (frameGraphics != null) frameGraphics.dispose();
+            frame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            backdrop = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            frameGraphics = frame.createGraphics();
+            frameGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            backdropR = Double.NaN;
+        }
+        Camera cam = camera;
+        if (Double.compare(backdropX, zx) != 0 || Double.compare(backdropY, zy) != 0 || Double.compare(backdropR, r) != 0
+                || backdropCamX != cam.x || backdropCamY != cam.y || backdropZoom != cam.zoom) {
+            backdropX = zx; backdropY = zy; backdropR = r;
+            backdropCamX = cam.x; backdropCamY = cam.y; backdropZoom = cam.zoom;
+            Graphics2D b = backdrop.createGraphics();
+            b.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            b.setColor(OUTSIDE_WORLD);
+            b.fillRect(0, 0, w, h);
+            int wx0 = (int) Math.floor(cam.toScreenX(0)), wy0 = (int) Math.floor(cam.toScreenY(0));
+            int wx1 = (int) Math.ceil(cam.toScreenX(cam.worldW)), wy1 = (int) Math.ceil(cam.toScreenY(cam.worldH));
+            b.setColor(BACKGROUND);
+            b.fillRect(wx0, wy0, wx1 - wx0, wy1 - wy0);
+            if (r >= 0) drawZone(b, cam.toScreenX(zx), cam.toScreenY(zy), (int) (r * cam.zoom), ZONE_FILL, ZONE_STROKE);
+            if (heat != null && heatLayer >= 0) paintHeatmap(b, cam);
+            b.dispose();
+        }
+        int[] pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        System.arraycopy(((DataBufferInt) backdrop.getRaster().getDataBuffer()).getData(), 0, pixels, 0, pixels.length);
+        return pixels;
+    }
+
+    /**
+     * Overlay the chosen heatmap layer: each cell is filled with the heat
+     * colour at an opacity growing with the square root of its count
+     * relative to the busiest cell. A heatmap recorded on a different
+     * world size is stretched over this one.
+     */
+    private void paintHeatmap(Graphics2D b, Camera cam){
+        Heatmap h = heat;
+        long max = h.max(heatLayer);
+        if (max == 0) return;
+        long[] counts = h.counts[heatLayer];
+        double cw = cam.worldW / h.cols, ch = cam.worldH / h.rows;
+        for (int row = 0; row < h.rows; row++) {
+            int y0 = (int) Math.round(cam.toScreenY(row * ch)), y1 = (int) Math.round(cam.toScreenY((row + 1) * ch));
+            for (int col = 0; col < h.cols; col++) {
+                long v = counts[row * h.cols + col];
+                if (v == 0) continue;
+                int a = (int) Math.round(HEAT_ALPHA * Math.sqrt((double) v / max));
+                int x0 = (int) Math.round(cam.toScreenX(col * cw)), x1 = (int) Math.round(cam.toScreenX((col + 1) * cw));
+                b.setColor(HEAT_RAMP[a]);
+                b.fillRect(x0, y0, x1 - x0, y1 - y0);
+            }
+        }
+    }
+
+    /**
+     * Tint every density tile towards the marker colour by the log of its
+     * player count relative to the busiest tile, so thin crowds stay
+     * visible next to dense ones. Tiles are placed with the current camera
+     * (the snapshot may lag a pan or zoom by a frame). One pass over the
+     * tiles' pixels, whatever the number of players.
+     */
+    private void paintDensity(int[] pixels, int w, int h, FrameSnapshot s){
+        final int cols = s.tileCols, rows = s.tileRows;
+        final int[] d = s.density;
+        int max = 0;
+        for (int t = 0; t < cols * rows; t++) max = Math.max(max, d[t]);
+        if (max == 0) return;
+        Camera cam = camera;
+        double tw = (s.viewX1 - s.viewX0) / cols, th = (s.viewY1 - s.viewY0) / rows;
+        if (tileEdges.length < cols + 1) tileEdges = new int[cols + 1];
+        for (int tx = 0; tx <= cols; tx++) tileEdges[tx] = Math.max(0, Math.min(w, (int) Math.round(cam.toScreenX(s.viewX0 + tx * tw))));
+        final int body = PlayerSprites.BODY.getRGB() & 0xFFFFFF;
+        final int br = body >> 16 & 0xFF, bg = body >> 8 & 0xFF, bb = body & 0xFF;
+        double scale = 215 / Math.log1p(max);
+        for (int ty = 0; ty < rows; ty++) {
+            int y0 = Math.max(0, Math.min(h, (int) Math.round(cam.toScreenY(s.viewY0 + ty * th))));
+            int y1 = Math.max(0, Math.min(h, (int) Math.round(cam.toScreenY(s.viewY0 + (ty + 1) * th))));
+            if (y0 >= y1) continue;
+            for (int tx = 0; tx < cols; tx++) {
+                int c = d[ty * cols + tx];
+                if (c == 0) continue;
+                int x0 = tileEdges[tx], x1 = tileEdges[tx + 1];
+                // a lone player still shows (alpha 40); the busiest tile is near-opaque
+                int a = 40 + (int) (Math.log1p(c) * scale);
+                for (int y = y0; y < y1; y++) {
+                    for (int i = y * w + x0, end = y * w + x1; i < end; i++) {
+                        int p = pixels[i];
+                        int r = p >> 16 & 0xFF, g = p >> 8 & 0xFF, b = p & 0xFF;
+                        r += (br - r) * a / 255; g += (bg - g) * a / 255; b += (bb - b) * a / 255;
+                        pixels[i] = r << 16 | g << 8 | b;
+                    }
+                }
+            }
+        }
+    }
+
+    // Alive players counted in the density tiles whose centres lie in the world rectangle.
+    private static int densityIn(FrameSnapshot s, double x0, double y0, double x1, double y1){
+        int cols = s.tileCols, rows = s.tileRows, n = 0;
+        double tw = (s.viewX1 - s.viewX0) / cols, th = (s.viewY1 - s.viewY0) / rows;
+        for (int ty = 0; ty < rows; ty++) {
+            double cy = s.viewY0 + (ty + 0.5) * th;
+            if (cy < y0 || cy > y1) continue;
+            for (int tx = 0; tx < cols; tx++) {
+                double cx = s.viewX0 + (tx + 0.5) * tw;
+                if (cx >= x0 && cx <= x1) n += s.density[ty * cols + tx];
+            }
+        }
+        return n;
     }
 
-    private void drawZone(Graphics2D g2, double cx, double cy, int r, Color fill, Color stroke){ g2.setColor(fill); g2.fillOval((int)(cx - r), (int)(cy - r), r*2, r*2); g2.setStroke(new BasicStroke(2f)); g2.setColor(stroke); g2.drawOval((int)(cx - r), (int)(cy - r), r*2, r*2); }
-    private void drawPlayer(Graphics2D g2, double x, double y, Player p){ float a = (float)Math.max(0, Math.min(1, p.activity)); int r = 6 + p.kills * 2; Color outer = new Color(59,130,246, (int)(32 + 160 * a)); g2.setColor(outer); g2.fillOval((int)(x - r - 2), (int)(y - r - 2), (r+2)*2, (r+2)*2); g2.setColor(new Color(207,232,255)); g2.fillOval((int)(x - r), (int)(y - r), r*2, r*2); g2.setColor(new Color(11,18,32)); g2.fillOval((int)(x - 2), (int)(y - 2), 4, 4); }
+    private void paintReplay(Graphics2D g2, int canvasW, int canvasH){
+        ReplayReader r = playback;
+        if (camera.resize(canvasW, canvasH)) viewChanged();
+        Camera cam = camera;
+        int[] pixels = beginFrame(canvasW, canvasH, r.zoneX, r.zoneY, r.zoneRadius);
+        int inZone = 0, aliveCount = 0;
+        double r2 = r.zoneRadius * r.zoneRadius;
+        // the replay keeps no alive count, so pick the level of detail from the total
+        boolean compact = PlayerSprites.useCompact(r.playerCount, canvasW, canvasH);
+        for (int i = 0; i < r.playerCount; i++) {
+            if (!r.alive[i]) continue;
+            aliveCount++;
+            double dx = r.x[i] - r.zoneX, dy = r.y[i] - r.zoneY;
+            if (dx*dx + dy*dy <= r2) inZone++;
+            double px = cam.toScreenX(r.x[i]), py = cam.toScreenY(r.y[i]);
+            if (compact) sprites.drawCompact(pixels, canvasW, canvasH, px, py, r.activity[i]);
+            else sprites.draw(pixels, canvasW, canvasH, frameGraphics, px, py, r.kills[i], r.activity[i]);
+        }
+        g2.drawImage(frame, 0, 0, null);
+        g2.setColor(PlayerSprites.BODY); g2.setFont(LABEL_FONT);
+        g2.drawString("Player inside: " + inZone, 10, 20);
+        g2.setFont(SMALL_FONT);
+        g2.drawString("Replay tick " + r.tick + " (" + (r.frame() + 1) + "/" + r.frameCount() + ")", 10, canvasH - 10);
+        g2.drawString("Round: " + r.round, canvasW - 140, canvasH - 28);
+        g2.drawString("Alive: " + aliveCount, canvasW - 140, canvasH - 10);
+    }
+
+    private static void drawZone(Graphics2D g2, double cx, double cy, int r, Color fill, Color stroke){ g2.setColor(fill); g2.fillOval((int)(cx - r), (int)(cy - r), r*2, r*2); g2.setStroke(ZONE_STROKE_WIDTH); g2.setColor(stroke); g2.drawOval((int)(cx - r), (int)(cy - r), r*2, r*2); }
+
+    @Override public void mouseDragged(MouseEvent e) {
+        Point p = e.getPoint();
+        if (panStart != null) {
+            camera.pan(p.x - panStart.x, p.y - panStart.y);
+            panStart = p;
+            viewChanged();
+            return;
+        }
+        if (dragStart == null) return;
+        selection = new Rectangle(Math.min(p.x, dragStart.x), Math.min(p.y, dragStart.y), Math.abs(p.x - dragStart.x), Math.abs(p.y - dragStart.y));
+        double x0 = camera.toWorldX(selection.x), y0 = camera.toWorldY(selection.y);
+        double x1 = camera.toWorldX(selection.x + selection.width), y1 = camera.toWorldY(selection.y + selection.height);
+        boolean live = playback == null;
+        FrameSnapshot s = live ? loop.latest() : null;
+        if (live && s.dense) {
+            if(hoverLabel != null) hoverLabel.setText(String.format("Selected about %d players", densityIn(s, x0, y0, x1, y1)));
+            repaint();
+            return;
+        }
+        // the slots in hoverScratch index `s`, not whatever frame the loop has published since
+        int n = selectPlayers(s, x0, y0, x1, y1);
+        int kills = 0;
+        for (int k = 0; k < n; k++) { int i = hoverScratch[k]; kills += live ? s.kills[i] : playback.kills[i]; }
+        if(hoverLabel != null) hoverLabel.setText(String.format("Selected %d players — kills: %d", n, kills));
+        repaint();
+    }
 
-    @Override public void mouseDragged(MouseEvent e) { }
     @Override public void mouseMoved(MouseEvent e) {
-        int mx = e.getX(); int my = e.getY(); String text = "Hover over a player";
-    for(Player p : sim.players){ if(!p.alive) continue; if(dist(mx, my, p.x, p.y) < 12){ text = String.format("Player %d — kills: %d, dist: %d, activity: %.2f", p.id, p.kills, p.distance, p.activity); break; } }
+        String text = "Hover over a player";
+        double wx = camera.toWorldX(e.getX()), wy = camera.toWorldY(e.getY()), reach = HOVER_RADIUS / camera.zoom;
+        FrameSnapshot s = playback == null ? loop.latest() : null;
+        if (s == null) {
+            ReplayReader r = playback;
+            refreshHoverIndex(null);
+            int i = hoverGrid.nearest(wx, wy, reach, r.x, r.y);
+            if (i >= 0) text = String.format("Player %d — kills: %d, activity: %.2f", i, r.kills[i], r.activity[i]);
+        } else if (s.dense) {
+            int tx = (int) Math.floor((wx - s.viewX0) / (s.viewX1 - s.viewX0) * s.tileCols);
+            int ty = (int) Math.floor((wy - s.viewY0) / (s.viewY1 - s.viewY0) * s.tileRows);
+            if (tx >= 0 && ty >= 0 && tx < s.tileCols && ty < s.tileRows) {
+                text = String.format("%d players here (%d alive) — zoom in to see them", s.density[ty * s.tileCols + tx], s.aliveCount);
+            }
+        } else {
+            refreshHoverIndex(s);
+            int k = hoverGrid.nearest(wx, wy, reach, s.x, s.y);
+            if (k >= 0) text = String.format("Player %d — kills: %d, dist: %d, activity: %.2f", s.ids[k], s.kills[k], s.distance[k], s.activity[k]);
+        }
         if(hoverLabel != null) hoverLabel.setText(text);
     }
 
-    private double dist(double ax, double ay, double bx, double by){ return Math.hypot(ax-bx, ay-by); }
+    /**
+     * Rebuild the hover grid for snapshot `s` of the live game, or for the
+     * replay frame when `s` is null, unless it was built for that frame
+     * already. For the live game grid ids are snapshot slots (index into
+     * the snapshot's columns); during playback they are player ids. The
+     * caller passes the snapshot it read so that the ids it gets back
+     * index the same frame.
+     */
+    private void refreshHoverIndex(FrameSnapshot s){
+        if (s == null) {
+            ReplayReader r = playback;
+            if (hoverSource == r && hoverKey == r.frame()) return;
+            if (hoverScratch.length < r.playerCount) hoverScratch = new int[r.playerCount];
+            int n = 0;
+            for (int i = 0; i < r.playerCount; i++) if (r.alive[i]) hoverScratch[n++] = i;
+            hoverGrid.build(n, hoverScratch, r.x, r.y);
+            hoverSource = r; hoverKey = r.frame();
+            return;
+        }
+        if (hoverSource != s || hoverKey != s.seq) {
+            hoverGrid.build(s.shown, s.x, s.y);
+            hoverSource = s; hoverKey = s.seq;
+        }
+    }
+
+    // Put the grid ids of everything of snapshot `s` (null: the replay frame) inside the world rectangle into hoverScratch; returns the count.
+    private int selectPlayers(FrameSnapshot s, double x0, double y0, double x1, double y1){
+        refreshHoverIndex(s);
+        double[] xs = s != null ? s.x : playback.x, ys = s != null ? s.y : playback.y;
+        if (hoverScratch.length < hoverGrid.size()) hoverScratch = new int[hoverGrid.size()];
+        return hoverGrid.query(x0, y0, x1, y1, xs, ys, hoverScratch);
+    }
+
 }
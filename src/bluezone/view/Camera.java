@@ -0,0 +1,69 @@
+package bluezone.view;
+
+/**
+ * Maps world coordinates (the simulator's canvasW x canvasH map) to panel
+ * pixels. The camera looks at world point (x, y), which appears at the
+ * centre of a `width` x `height` viewport, magnified by `zoom` pixels per
+ * world unit. Until the user pans or zooms it follows the viewport size
+ * and shows the whole world.
+ */
+class Camera {
+    // closest zoom in, pixels per world unit
+    static final double MAX_ZOOM = 16;
+
+    final double worldW, worldH;
+    double x, y, zoom = 1;
+    int width = 1, height = 1;
+    // true while the camera shows the whole world and should keep doing so on resize
+    boolean fitted = true;
+
+    Camera(double worldW, double worldH) {
+        this.worldW = worldW; this.worldH = worldH;
+        fit();
+    }
+
+    double toScreenX(double wx) { return (wx - x) * zoom + width * 0.5; }
+    double toScreenY(double wy) { return (wy - y) * zoom + height * 0.5; }
+    double toWorldX(double sx) { return x + (sx - width * 0.5) / zoom; }
+    double toWorldY(double sy) { return y + (sy - height * 0.5) / zoom; }
+
+    // Zoom at which the whole world fits the viewport.
+    double fitZoom() { return Math.min(width / worldW, height / worldH); }
+
+    void fit() {
+        zoom = fitZoom();
+        x = worldW / 2; y = worldH / 2;
+        fitted = true;
+    }
+
+    // Resize the viewport; returns true if the mapping changed.
+    boolean resize(int w, int h) {
+        if (w == width && h == height) return false;
+        width = Math.max(1, w); height = Math.max(1, h);
+        if (fitted) fit();
+        return true;
+    }
+
+    // Multiply the zoom by `factor`, keeping the world point under pixel (sx, sy) in place.
+    void zoomAt(double sx, double sy, double factor) {
+        double wx = toWorldX(sx), wy = toWorldY(sy);
+        zoom = Math.max(fitZoom() / 2, Math.min(MAX_ZOOM, zoom * factor));
+        x = wx - (sx - width * 0.5) / zoom;
+        y = wy - (sy - height * 0.5) / zoom;
+        fitted = false;
+        clamp();
+    }
+
+    // Move the view by (dx, dy) pixels.
+    void pan(double dx, double dy) {
+        x -= dx / zoom; y -= dy / zoom;
+        fitted = false;
+        clamp();
+    }
+
+    // the point looked at stays inside the world, so some of it is always on screen
+    private void clamp() {
+        x = Math.max(0, Math.min(worldW, x));
+        y = Math.max(0, Math.min(worldH, y));
+    }
+}
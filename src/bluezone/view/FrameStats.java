@@ -0,0 +1,65 @@
+package bluezone.view;
+
+import java.util.Arrays;
+
+/**
+ * Rolling paint statistics over the last WINDOW frames: how long
+ * paintComponent took and how often it ran. Updated on the EDT; the
+ * getters are meant to be read from there too.
+ */
+public class FrameStats {
+    public static final int WINDOW = 120;
+
+    private final long[] paintNanos = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private int count = 0, next = 0;
+    private long firstFrameNanos = 0, lastFrameNanos = 0;
+    private final long[] frameStarts = new long[WINDOW];
+
+    // Record one frame that started at `startNanos` and took `nanos` to paint.
+    public void record(long startNanos, long nanos) {
+        frameStarts[next] = startNanos;
+        paintNanos[next] = nanos;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        firstFrameNanos = frameStarts[count < WINDOW ? 0 : next];
+        lastFrameNanos = startNanos;
+    }
+
+    public int frames() { return count; }
+
+    public double meanPaintMs() {
+        if (count == 0) return 0;
+        long sum = 0;
+        for (int i = 0; i < count; i++) sum += paintNanos[i];
+        return sum / (count * 1e6);
+    }
+
+    // Paint time below which fraction `q` (0..1) of the window falls.
+    public double percentilePaintMs(double q) {
+        if (count == 0) return 0;
+        System.arraycopy(paintNanos, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int idx = (int) Math.min(count - 1, Math.max(0, Math.ceil(q * count) - 1));
+        return sorted[idx] / 1e6;
+    }
+
+    public double maxPaintMs() {
+        long max = 0;
+        for (int i = 0; i < count; i++) max = Math.max(max, paintNanos[i]);
+        return max / 1e6;
+    }
+
+    // Frames painted per second over the window.
+    public double fps() {
+        if (count < 2 || lastFrameNanos == firstFrameNanos) return 0;
+        return (count - 1) * 1e9 / (lastFrameNanos - firstFrameNanos);
+    }
+
+    public void clear() { count = 0; next = 0; }
+
+    @Override public String toString() {
+        return String.format("paint %.1f ms (p95 %.1f, max %.1f), %.0f fps",
+                meanPaintMs(), percentilePaintMs(0.95), maxPaintMs(), fps());
+    }
+}
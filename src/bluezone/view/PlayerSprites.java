@@ -0,0 +1,125 @@
+package bluezone.view;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Pre-rendered player markers. A player is drawn as a halo whose alpha
+ * follows activity, a body whose radius grows with kills, and a dark
+ * centre dot; rendering those three anti-aliased ovals per player is what
+ * dominates a frame with many players. Sprites are rendered once per
+ * (kills, activity bucket) as premultiplied ARGB pixels and composited
+ * straight into the frame's int raster, which avoids a Java2D call per
+ * player. Kill counts above MAX_KILLS fall back to drawing the ovals.
+ *
+ * When the markers would cover the canvas several times over, the
+ * frame is bound by pixel fill rather than by draw calls, and the
+ * individual halos cannot be told apart anyway. `compact` sprites (a
+ * 2 px body in a 1 px halo, activity only) are used at that density.
+ */
+class PlayerSprites {
+    static final int MAX_KILLS = 31;
+    static final int ACTIVITY_BUCKETS = 16;
+    // use compact sprites once the full-size ones would cover the canvas this many times
+    static final int COMPACT_COVERAGE = 4;
+    // rough pixel area of a full-size sprite at typical kill counts
+    private static final int TYPICAL_SPRITE_AREA = 300;
+
+    static final Color BODY = new Color(207,232,255);
+    static final Color CENTRE = new Color(11,18,32);
+    private static final Color[] HALO = new Color[ACTIVITY_BUCKETS];
+    static {
+        for (int b = 0; b < ACTIVITY_BUCKETS; b++) HALO[b] = new Color(59,130,246, haloAlpha(b));
+    }
+
+    // premultiplied ARGB pixels of square sprites
+    private final int[][] sprites = new int[(MAX_KILLS + 1) * ACTIVITY_BUCKETS][];
+    private final int[][] compactSprites = new int[ACTIVITY_BUCKETS][];
+
+    static int activityBucket(float activity) {
+        float a = Math.max(0, Math.min(1, activity));
+        return Math.min(ACTIVITY_BUCKETS - 1, (int) (a * ACTIVITY_BUCKETS));
+    }
+
+    // halo alpha at the middle of bucket `b`, same scale as the unbucketed 32 + 160 * activity
+    private static int haloAlpha(int b) { return (int) (32 + 160 * ((b + 0.5f) / ACTIVITY_BUCKETS)); }
+
+    static int radius(int kills) { return 6 + kills * 2; }
+
+    // Whether `count` markers on a w x h canvas should be drawn compact.
+    static boolean useCompact(int count, int w, int h) {
+        return (long) count * TYPICAL_SPRITE_AREA > (long) COMPACT_COVERAGE * w * h;
+    }
+
+    /**
+     * Draw one player centred on (x, y) into a w x h INT_RGB frame whose
+     * pixels are `dst`. `g` draws into the same frame and is only used for
+     * kill counts too large to have a sprite.
+     */
+    void draw(int[] dst, int w, int h, Graphics2D g, double x, double y, int kills, float activity) {
+        int bucket = activityBucket(activity);
+        if (kills < 0 || kills > MAX_KILLS) { drawOvals(g, x, y, radius(kills), HALO[bucket]); return; }
+        int idx = kills * ACTIVITY_BUCKETS + bucket;
+        int[] s = sprites[idx];
+        if (s == null) s = sprites[idx] = render(radius(kills), HALO[bucket]);
+        int half = radius(kills) + 2;
+        composite(dst, w, h, s, half * 2 + 1, (int) x - half, (int) y - half);
+    }
+
+    void drawCompact(int[] dst, int w, int h, double x, double y, float activity) {
+        int bucket = activityBucket(activity);
+        int[] s = compactSprites[bucket];
+        if (s == null) s = compactSprites[bucket] = renderCompact(HALO[bucket]);
+        composite(dst, w, h, s, 7, (int) x - 3, (int) y - 3);
+    }
+
+    // Source-over blend of a premultiplied sprite onto opaque RGB pixels, clipped to the frame.
+    private static void composite(int[] dst, int w, int h, int[] src, int size, int x0, int y0) {
+        int sx0 = Math.max(0, -x0), sy0 = Math.max(0, -y0);
+        int sx1 = Math.min(size, w - x0), sy1 = Math.min(size, h - y0);
+        for (int sy = sy0; sy < sy1; sy++) {
+            int si = sy * size, di = (y0 + sy) * w + x0;
+            for (int sx = sx0; sx < sx1; sx++) {
+                int p = src[si + sx];
+                int a = p >>> 24;
+                if (a == 0) continue;
+                if (a == 255) { dst[di + sx] = p; continue; }
+                // dst * (255 - a) / 255 per channel, red and blue in one multiply, rounded exactly
+                int d = dst[di + sx];
+                int inv = 255 - a;
+                int rb = (d & 0xFF00FF) * inv + 0x800080;
+                rb = ((rb + ((rb >>> 8) & 0xFF00FF)) >>> 8) & 0xFF00FF;
+                int g = (d & 0x00FF00) * inv + 0x008000;
+                g = ((g + ((g >>> 8) & 0x00FF00)) >>> 8) & 0x00FF00;
+                dst[di + sx] = (p & 0xFFFFFF) + rb + g;
+            }
+        }
+    }
+
+    private static int[] render(int r, Color halo) {
+        int size = (r + 2) * 2 + 1;
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        drawOvals(g, r + 2, r + 2, r, halo);
+        g.dispose();
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private static int[] renderCompact(Color halo) {
+        BufferedImage img = new BufferedImage(7, 7, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(halo); g.fillOval(0, 0, 6, 6);
+        g.setColor(BODY); g.fillOval(1, 1, 4, 4);
+        g.dispose();
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private static void drawOvals(Graphics2D g2, double x, double y, int r, Color halo) {
+        g2.setColor(halo); g2.fillOval((int)(x - r - 2), (int)(y - r - 2), (r+2)*2, (r+2)*2);
+        g2.setColor(BODY); g2.fillOval((int)(x - r), (int)(y - r), r*2, r*2);
+        g2.setColor(CENTRE); g2.fillOval((int)(x - 2), (int)(y - 2), 4, 4);
+    }
+}
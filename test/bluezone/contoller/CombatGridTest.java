@@ -0,0 +1,57 @@
+package bluezone.contoller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The grid combat pass (Simulator.spatialCombat) against the brute-force
+ * pair scan: two games of the same seed played in lockstep must kill the
+ * same players every tick. The grid is forced on from two alive players,
+ * below its usual threshold, so small lobbies exercise it too. The scan is
+ * quadratic, so the lobbies stay moderate.
+ */
+class CombatGridTest {
+
+    @ParameterizedTest(name = "{0} players, {1}")
+    @CsvSource({
+        "30, adaptive", "30, random",
+        "1000, adaptive", "1000, random",
+        "10000, adaptive", "10000, random"
+    })
+    void gridKillsLikeThePairScan(int players, String mode) {
+        SimulationConfig config = SimulationConfig.DEFAULT.toBuilder().maxRounds(Integer.MAX_VALUE / 2).build();
+        Simulator grid = new Simulator(1000, 500, 1, config), scan = new Simulator(1000, 500, 1, config);
+        grid.randomMode = scan.randomMode = mode.equals("random");
+        grid.spatialCombat = true;
+        grid.gridCombatMinAlive = 2;
+        scan.spatialCombat = false;
+        grid.reset(players);
+        scan.reset(players);
+        int roundTicks = config.roundIntervalSeconds * 1000 / Simulator.TICK_MS;
+        long deaths = 0;
+        for (int t = 1; t <= 2000; t++) {
+            int before = grid.players.countAlive();
+            grid.stepAnimation();
+            scan.stepAnimation();
+            if (t % roundTicks == 0) { grid.advanceRound(); scan.advanceRound(); }
+            deaths += before - grid.players.countAlive();
+            assertSameCombat(grid, scan, t);
+        }
+        assertTrue(deaths > 0, "no player died, so nothing was compared");
+    }
+
+    private static void assertSameCombat(Simulator a, Simulator b, int tick) {
+        assertEquals(b.players.countAlive(), a.players.countAlive(), "alive count at tick " + tick);
+        for (int i = 0; i < a.players.size(); i++) {
+            assertEquals(b.players.isAlive(i), a.players.isAlive(i), "alive flag of player " + i + " at tick " + tick);
+            assertEquals(b.players.kills[i], a.players.kills[i], "kills of player " + i + " at tick " + tick);
+            if (!a.players.isAlive(i)) continue;
+            assertEquals(b.players.x[i], a.players.x[i], "x of player " + i + " at tick " + tick);
+            assertEquals(b.players.y[i], a.players.y[i], "y of player " + i + " at tick " + tick);
+        }
+        assertEquals(b.winnerLeftId, a.winnerLeftId, "winner at tick " + tick);
+    }
+}
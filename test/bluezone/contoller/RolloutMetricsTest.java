@@ -0,0 +1,32 @@
+package bluezone.contoller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Rollouts run on pooled simulators that are restored, never reset, and
+ * must still reach the process-wide metrics: every rollout of an estimate
+ * adds one game, and its ticks, to MetricsRegistry by the time the
+ * estimate completes.
+ */
+class RolloutMetricsTest {
+
+    @Test
+    void everyRolloutIsFlushedAsOneGame() throws Exception {
+        assumeTrue(SimulatorMetrics.ENABLED, "metrics disabled in this JVM");
+        Match match = new Match(new Simulator(1000, 500, 1, SimulationConfig.DEFAULT));
+        match.start(200);
+        for (int t = 0; t < 50; t++) match.tick();
+        SimState state = match.snapshot();
+        MetricsRegistry registry = MetricsRegistry.global();
+        long games = registry.getGames(), ticks = registry.getTicks();
+        try (RolloutService service = new RolloutService(2)) {
+            assertEquals(40, service.estimate(state, 40, 5).rollouts);
+        }
+        assertEquals(games + 40, registry.getGames(), "games flushed by the rollouts");
+        assertTrue(registry.getTicks() > ticks, "rollout ticks flushed");
+    }
+}
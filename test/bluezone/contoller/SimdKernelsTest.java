@@ -0,0 +1,67 @@
+package bluezone.contoller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The Vector API kernels against the scalar path: two games of the same
+ * seed, with and without Simulator.simd, played in lockstep must agree on
+ * every alive flag, position, zone distance (as bits) and zone class after
+ * every tick and round. simdMinAlive is lowered to 0 so the kernels also
+ * run once the games have thinned out. Skipped when the JVM cannot run the
+ * kernels (no jdk.incubator.vector, or vectors narrower than 256 bits).
+ */
+class SimdKernelsTest {
+
+    @Test
+    void kernelsLoadWithTheModule() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector not in this JVM");
+        assertNotNull(SimdKernels.INSTANCE, "VectorKernels not on the class path");
+    }
+
+    @ParameterizedTest(name = "{0} players, {1}")
+    @CsvSource({
+        "1000, adaptive", "1000, random",
+        "20000, adaptive", "20000, random"
+    })
+    void kernelsMatchTheScalarPath(int players, String mode) {
+        assumeTrue(Simulator.SIMD_AVAILABLE, "SIMD kernels unavailable in this JVM");
+        SimulationConfig config = SimulationConfig.DEFAULT.toBuilder().maxRounds(Integer.MAX_VALUE / 2).build();
+        Simulator vec = new Simulator(1000, 500, 1, config), ref = new Simulator(1000, 500, 1, config);
+        vec.randomMode = ref.randomMode = mode.equals("random");
+        vec.simd = true;
+        vec.simdMinAlive = 0;
+        ref.simd = false;
+        vec.reset(players);
+        ref.reset(players);
+        int roundTicks = config.roundIntervalSeconds * 1000 / Simulator.TICK_MS;
+        for (int t = 1; t <= 300; t++) {
+            vec.stepAnimation();
+            ref.stepAnimation();
+            if (t % roundTicks == 0) { vec.advanceRound(); ref.advanceRound(); }
+            assertSameState(vec, ref, t);
+        }
+    }
+
+    private static void assertSameState(Simulator a, Simulator b, int tick) {
+        ZoneMembership ma = a.membership, mb = b.membership;
+        assertEquals(b.players.countAlive(), a.players.countAlive(), "alive count at tick " + tick);
+        assertEquals(mb.inside, ma.inside, "players inside at tick " + tick);
+        assertEquals(mb.buffer, ma.buffer, "players in the buffer at tick " + tick);
+        assertEquals(mb.outside, ma.outside, "players outside at tick " + tick);
+        for (int i = 0; i < a.players.size(); i++) {
+            assertEquals(b.players.isAlive(i), a.players.isAlive(i), "alive flag of player " + i + " at tick " + tick);
+            assertEquals(mb.cls[i], ma.cls[i], "zone class of player " + i + " at tick " + tick);
+            if (!a.players.isAlive(i)) continue;
+            // compared as bits: the kernels must not differ even in the last ulp
+            assertEquals(Double.doubleToRawLongBits(b.players.x[i]), Double.doubleToRawLongBits(a.players.x[i]), "x of player " + i + " at tick " + tick);
+            assertEquals(Double.doubleToRawLongBits(b.players.y[i]), Double.doubleToRawLongBits(a.players.y[i]), "y of player " + i + " at tick " + tick);
+            assertEquals(Double.doubleToRawLongBits(mb.dist2[i]), Double.doubleToRawLongBits(ma.dist2[i]), "zone distance of player " + i + " at tick " + tick);
+        }
+    }
+}
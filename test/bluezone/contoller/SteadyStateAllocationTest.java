@@ -0,0 +1,129 @@
+package bluezone.contoller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Once a game is running, ticks and rounds allocate nothing. Each case
+ * plays a warm-up game and then 10k measured ticks of a second one on the
+ * same simulator, with a round advance every roundIntervalSeconds of
+ * simulated time (the round limit is lifted) and the dead respawned after
+ * every tick and round (Simulator.respawnDead), so every tick starts with
+ * the full lobby. The bytes allocated meanwhile by the calling thread and,
+ * in the pooled cases, by the movement pool's workers must be zero.
+ *
+ * The pooled case forces the fork-join movement path at a lobby of two
+ * chunks by setting parallelMovementThreshold to 0, on a pool of its own
+ * with four workers, so it runs the same on a single core. The workers
+ * are all started before the game (see startWorkers). It also sets
+ * simdMinAlive to 0, so it runs the SIMD kernels where the JVM can.
+ */
+class SteadyStateAllocationTest {
+    static final int TICKS = 10_000;
+    // workers of the pooled case's movement pool
+    static final int WORKERS = 4;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @ParameterizedTest(name = "{0} players, {1}, pooled {2}")
+    @CsvSource({
+        "30, adaptive, false", "30, random, false",
+        "1000, adaptive, false", "1000, random, false",
+        "5000, adaptive, true"
+    })
+    void ticksAndRoundsAllocateNothing(int players, String mode, boolean pooled) throws InterruptedException {
+        SimulationConfig.Builder b = SimulationConfig.DEFAULT.toBuilder().maxRounds(Integer.MAX_VALUE / 2);
+        if (pooled) b.parallelMovementThreshold(0).simdMinAlive(0);
+        SimulationConfig config = b.build();
+        Simulator sim = new Simulator(1000, 500, 1, config);
+        sim.randomMode = mode.equals("random");
+        // ids of the pool's worker threads, recorded as the pool starts them
+        List<Long> workers = new ArrayList<>();
+        ForkJoinPool pool = null;
+        if (pooled) {
+            pool = new ForkJoinPool(WORKERS, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                synchronized (workers) { workers.add(t.getId()); }
+                return t;
+            }, null, false, WORKERS, WORKERS, 1, null, 1, TimeUnit.HOURS);
+            startWorkers(pool);
+            sim.movementPool = pool;
+        } else {
+            sim.movementPool = null;
+        }
+        try {
+            // JIT recompilations and scratch buffers reaching their working size allocate for the first few
+            // thousand ticks; small lobbies need even more ticks before every path is compiled
+            sim.reset(players);
+            play(sim, players, Math.max(TICKS, 10_000_000 / players));
+            // starting a game is not a tick: the first one after a finished game publishes its metrics
+            sim.reset(players);
+            // the workers are read outside the calling thread's window: the reads allocate
+            long[] ids0 = ids(workers);
+            long[] before = THREADS.getThreadAllocatedBytes(ids0);
+            long self0 = THREADS.getCurrentThreadAllocatedBytes();
+            int minAlive = play(sim, players, TICKS);
+            long self = THREADS.getCurrentThreadAllocatedBytes() - self0;
+            long[] ids1 = ids(workers);
+            long[] after = THREADS.getThreadAllocatedBytes(ids1);
+            long others = 0;
+            // workers started in between count in full
+            for (int k = 0; k < ids1.length; k++) others += after[k] - (k < ids0.length ? Math.max(0, before[k]) : 0);
+            assertEquals(players, minAlive, "a measured tick started short of the full lobby");
+            if (pooled) assertTrue(pool.getStealCount() > 0, "the movement pool ran nothing");
+            assertEquals(0, self + others, String.format("%d bytes on the calling thread, %d on %d pool workers (%.2f per tick)",
+                    self, others, ids1.length, (double) (self + others) / TICKS));
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Start every worker of `pool` now. The pool otherwise starts workers
+     * as it finds them busy, at any point of a run, and a start allocates
+     * the thread on the submitting thread; with a keep-alive of an hour
+     * none retires and has to be replaced.
+     */
+    private static void startWorkers(ForkJoinPool pool) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(WORKERS);
+        for (int k = 0; k < WORKERS; k++) {
+            pool.execute(() -> {
+                started.countDown();
+                try { started.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            });
+        }
+        started.await();
+    }
+
+    private static long[] ids(List<Long> workers) {
+        synchronized (workers) { return workers.stream().mapToLong(Long::longValue).toArray(); }
+    }
+
+    // Play `ticks` ticks of the current game, keeping the lobby full; returns the fewest players alive at the start of a tick.
+    private static int play(Simulator sim, int players, int ticks) {
+        int roundTicks = sim.config.roundIntervalSeconds * 1000 / Simulator.TICK_MS;
+        int minAlive = players;
+        for (int t = 1; t <= ticks; t++) {
+            minAlive = Math.min(minAlive, sim.players.countAlive());
+            sim.stepAnimation();
+            if (t % roundTicks == 0) sim.advanceRound();
+            sim.respawnDead();
+        }
+        return minAlive;
+    }
+}
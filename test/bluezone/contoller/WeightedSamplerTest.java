@@ -0,0 +1,90 @@
+package bluezone.contoller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Zone-centre draws (Simulator.sampleWeightedPlayer) against the players'
+ * adaptive weights. A game is played until at most 3/4 of its players are
+ * alive (at least one tick), then until at most 1/2 and 1/4 are (at least
+ * one round each), and at the start and at each of those points players
+ * are drawn a million times, at least 20 per player. No dead or
+ * weightless player may be drawn, and a chi-square test of the draws
+ * against the weights must not reject at p < 0.001, which catches a wrong
+ * search as well as weights left stale by a kill or death.
+ */
+class WeightedSamplerTest {
+    static final long DRAWS = 1_000_000;
+
+    @ParameterizedTest(name = "{0} players, {1}")
+    @CsvSource({
+        "30, adaptive", "30, random",
+        "1000, adaptive", "1000, random",
+        "100000, adaptive", "100000, random"
+    })
+    void drawsFollowTheAdaptiveWeights(int players, String mode) {
+        SimulationConfig config = SimulationConfig.DEFAULT.toBuilder().maxRounds(Integer.MAX_VALUE / 2).build();
+        Simulator sim = new Simulator(1000, 500, 1, config);
+        sim.randomMode = mode.equals("random");
+        sim.reset(players);
+        int roundTicks = config.roundIntervalSeconds * 1000 / Simulator.TICK_MS;
+        long draws = Math.max(DRAWS, 20L * players);
+        int t = 0;
+        for (int stage = 0; stage < 4; stage++) {
+            // kills credit the winners and zero the dead, so later stages test the updates as well as the search;
+            // a large lobby passes every target on its first combat tick, so the last two stages also play a whole round
+            int target = Math.max(2, players - players * stage / 4);
+            int minTicks = stage == 0 ? 0 : stage == 1 ? 1 : roundTicks;
+            int from = t;
+            while ((sim.players.countAlive() > target || t - from < minTicks)
+                    && sim.players.countAlive() > 1 && t < 100_000) {
+                sim.stepAnimation();
+                if (++t % roundTicks == 0) sim.advanceRound();
+            }
+            if (stage > 0) assertNotEquals(from, t, "stage " + stage + " repeats tick " + t);
+            assertDrawsFollowWeights(sim, t, draws);
+        }
+    }
+
+    private static void assertDrawsFollowWeights(Simulator sim, int tick, long draws) {
+        int size = sim.players.size();
+        long[] hits = new long[size];
+        for (long d = 0; d < draws; d++) hits[sim.sampleWeightedPlayer()]++;
+        double total = 0;
+        for (int i = 0; i < size; i++) if (sim.players.isAlive(i)) total += sim.adaptiveWeight(i);
+        double chi2 = 0;
+        int cells = 0;
+        long bad = 0;
+        for (int i = 0; i < size; i++) {
+            double w = sim.players.isAlive(i) ? sim.adaptiveWeight(i) : 0;
+            if (w <= 0) { bad += hits[i]; continue; }
+            double expected = draws * w / total, diff = hits[i] - expected;
+            chi2 += diff * diff / expected;
+            cells++;
+        }
+        assertEquals(0, bad, "dead or weightless players drawn at tick " + tick);
+        double p = chiSquareUpperTail(chi2, cells - 1);
+        assertTrue(p >= 0.001, String.format("tick %d, %d alive: chi2 %.1f on %d df, p %.5f",
+                tick, sim.players.countAlive(), chi2, cells - 1, p));
+    }
+
+    // P(X >= x) for X chi-square with `df` degrees of freedom (Wilson-Hilferty normal approximation).
+    static double chiSquareUpperTail(double x, int df) {
+        if (df <= 0) return 1;
+        double v = 2.0 / (9.0 * df);
+        double z = (Math.cbrt(x / df) - (1 - v)) / Math.sqrt(v);
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    // Complementary error function (Abramowitz and Stegun 7.1.26, error below 1.5e-7).
+    private static double erfc(double x) {
+        if (x < 0) return 2 - erfc(-x);
+        double t = 1 / (1 + 0.3275911 * x);
+        double poly = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))));
+        return poly * Math.exp(-x * x);
+    }
+}
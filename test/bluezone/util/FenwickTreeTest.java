@@ -0,0 +1,64 @@
+package bluezone.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * `find` against a linear scan of the cumulative weights, with runs of
+ * zero entries (dead players) in the middle and at the end, after many
+ * point updates have left rounding in the partial sums, and find(total())
+ * staying inside the tree.
+ */
+class FenwickTreeTest {
+
+    @Test
+    void findMatchesLinearScan() {
+        Random rnd = new Random(7);
+        FenwickTree t = new FenwickTree();
+        for (int n : new int[]{1, 2, 3, 30, 1000, 4096, 5000}) {
+            t.reset(n);
+            for (int i = 0; i < n; i++) t.setRaw(i, rnd.nextDouble() * 10);
+            t.rebuild();
+            for (int u = 0; u < 20 * n; u++) {
+                int i = rnd.nextInt(n);
+                t.set(i, rnd.nextInt(4) == 0 ? 0 : 0.5 + rnd.nextDouble() * 20);
+            }
+            if (t.total() <= 0) t.set(0, 1);
+            for (int k = 0; k < 2000; k++) {
+                double target = (1 - rnd.nextDouble()) * t.total();
+                assertEquals(scan(t, target), t.find(target), "n " + n + ", target " + target);
+            }
+        }
+    }
+
+    @Test
+    void findTotalStaysInRange() {
+        Random rnd = new Random(11);
+        FenwickTree t = new FenwickTree();
+        for (int n : new int[]{1, 7, 64, 1000, 4097}) {
+            t.reset(n);
+            int last = rnd.nextInt(n);
+            for (int i = 0; i <= last; i++) t.set(i, 0.1 + rnd.nextDouble());
+            for (int i = 0; i < last; i++) if (rnd.nextBoolean()) t.set(i, 0);
+            int found = t.find(t.total());
+            assertTrue(found >= last && found < n, "n " + n + ", last " + last + ", found " + found);
+        }
+    }
+
+    // Smallest index whose cumulative weight reaches `target`, ignoring zero entries.
+    private static int scan(FenwickTree t, double target) {
+        double s = 0;
+        int lastPositive = -1;
+        for (int i = 0; i < t.size(); i++) {
+            if (t.get(i) <= 0) continue;
+            s += t.get(i);
+            lastPositive = i;
+            if (s >= target) return i;
+        }
+        return lastPositive;
+    }
+}
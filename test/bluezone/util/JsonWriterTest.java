@@ -0,0 +1,33 @@
+package bluezone.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * `string` against the JDK's UTF-8 encoder for text of one to four bytes
+ * per code point, surrogate pairs included, and the escapes it writes
+ * for quotes, control characters and lone surrogates.
+ */
+class JsonWriterTest {
+
+    @Test
+    void encodesWholeCodePoints() {
+        for (String s : new String[]{"plain", "café", "волк", "大逃杀",
+                                     "😀 and 🏆", "𐀀􏿿"}) {
+            byte[] expected = ('"' + s + '"').getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, new JsonWriter(16).string(s).toBytes(), s);
+        }
+    }
+
+    @Test
+    void escapesQuotesControlsAndLoneSurrogates() {
+        assertEquals("\"a\\\"b\\\\c\\u000a\"", new JsonWriter().string("a\"b\\c\n").toString());
+        assertEquals("\"x\\ud83dy\"", new JsonWriter().string("x\uD83Dy").toString());
+        assertEquals("\"\\ude00\\ud83d\"", new JsonWriter().string("\uDE00\uD83D").toString());
+        assertEquals("\"end\\ud83d\"", new JsonWriter().string("end\uD83D").toString());
+    }
+}
@@ -6,7 +6,8 @@ Writes a comparison JSON and CSV to results/comparison-<timestamp>.json/.csv
 Usage:
   python tools/compare_results.py
 
-The script looks for files named run-*.json and reads their "mode" and "metrics" fields.
+The script reads runs from the append-only logs runs-*.ndjson (one JSON run per line)
+and from legacy per-run files named run-*.json, using their "mode" and "metrics" fields.
 If metrics is missing it will compute a few basic ones from the players list.
 """
 import json
@@ -19,10 +20,33 @@ RESULTS_DIR = os.path.join(os.path.dirname(__file__), '..', 'results')
 if not os.path.isabs(RESULTS_DIR):
     RESULTS_DIR = os.path.abspath(RESULTS_DIR)
 
+def load_ndjson_runs():
+    runs = []
+    for p in sorted(glob(os.path.join(RESULTS_DIR, 'runs-*.ndjson'))):
+        try:
+            with open(p, 'r', encoding='utf-8') as f:
+                for lineno, line in enumerate(f, 1):
+                    line = line.strip()
+                    if not line:
+                        continue
+                    try:
+                        data = json.loads(line)
+                    except json.JSONDecodeError as e:
+                        # a log being written concurrently may end in a partial line
+                        print(f'Warning: skipping {p}:{lineno}: {e}')
+                        continue
+                    data['_path'] = p
+                    data['_line'] = lineno
+                    runs.append(data)
+        except Exception as e:
+            print(f'Warning: failed to load {p}: {e}')
+    return runs
+
+
 def load_runs():
     pattern = os.path.join(RESULTS_DIR, 'run-*.json')
     paths = glob(pattern)
-    runs = []
+    runs = load_ndjson_runs()
     for p in paths:
         try:
             with open(p, 'r', encoding='utf-8') as f:
@@ -190,13 +214,20 @@ def aggregate_runs_metrics(runs_list):
     return aggregated
 
 
+def run_ref(run):
+    """Human-readable location of a run: the file, plus the line for NDJSON logs."""
+    if '_line' in run:
+        return f"{run.get('_path')}:{run['_line']}"
+    return run.get('_path')
+
+
 def write_output(comp, adaptive_run, random_run):
     now = datetime.now(timezone.utc).isoformat().replace(':','-')
     out_json = os.path.join(RESULTS_DIR, f'comparison-{now}.json')
     out_csv = os.path.join(RESULTS_DIR, f'comparison-{now}.csv')
     # comp is expected to be a dict with 'perMetric' mapping metric -> {adaptive: {mean,std,count,total}, random: {...}, diff: ...}
     with open(out_json, 'w', encoding='utf-8') as f:
-        json.dump({ 'comparison': comp, 'adaptive_runs': [r.get('_path') for r in adaptive_run], 'random_runs': [r.get('_path') for r in random_run] }, f, indent=2)
+        json.dump({ 'comparison': comp, 'adaptive_runs': [run_ref(r) for r in adaptive_run], 'random_runs': [run_ref(r) for r in random_run] }, f, indent=2)
     # write CSV: rows = metric, adaptive_mean,adaptive_std,adaptive_count,random_mean,random_std,random_count,diff_mean
     perMetric = comp['perMetric']
     with open(out_csv, 'w', encoding='utf-8') as f: